@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes an index of the classes Geyser loads at startup, so they don't have to be found by scanning the classpath.
+ *
+ * For every annotation or interface in {@link #INDEXED_TYPES}, the binary names of the classes that are annotated
+ * with it or implement it are written to {@code META-INF/geyser/<type name>}, one per line. Incremental builds only
+ * compile some of the classes, so entries of an existing index are kept unless their class was compiled again or
+ * doesn't exist anymore.
+ */
+@SupportedAnnotationTypes("*")
+public class ClassIndexProcessor extends AbstractProcessor {
+    public static final String INDEX_DIRECTORY = "META-INF/geyser/";
+
+    private static final String[] INDEXED_TYPES = {
+            "org.geysermc.connector.network.translators.Translator",
+            "org.geysermc.connector.network.translators.ItemRemapper",
+            "org.geysermc.connector.network.translators.collision.CollisionRemapper",
+            "org.geysermc.connector.network.translators.sound.SoundHandler",
+            "org.geysermc.connector.network.translators.world.block.entity.BlockEntity",
+            "org.geysermc.connector.network.translators.world.block.entity.RequiresBlockState"
+    };
+
+    private final Map<String, Set<String>> index = new LinkedHashMap<>();
+    /**
+     * Every class that was compiled this time, and so has already been checked for each indexed type
+     */
+    private final Set<String> compiledClasses = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            addCompiledClasses(element);
+        }
+
+        for (String typeName : INDEXED_TYPES) {
+            TypeElement indexedType = processingEnv.getElementUtils().getTypeElement(typeName);
+            if (indexedType == null) {
+                // Not compiling the connector
+                continue;
+            }
+
+            Set<String> classes = index.computeIfAbsent(typeName, name -> new TreeSet<>());
+            if (indexedType.getKind() == ElementKind.ANNOTATION_TYPE) {
+                for (Element element : roundEnv.getElementsAnnotatedWith(indexedType)) {
+                    if (element.getKind() == ElementKind.CLASS) {
+                        classes.add(getBinaryName((TypeElement) element));
+                    }
+                }
+            } else {
+                TypeMirror indexedMirror = processingEnv.getTypeUtils().erasure(indexedType.asType());
+                for (Element element : roundEnv.getRootElements()) {
+                    addImplementations(element, indexedMirror, classes);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addImplementations(Element element, TypeMirror indexedMirror, Set<String> classes) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+
+        if (element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT)
+                && processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(element.asType()), indexedMirror)) {
+            classes.add(getBinaryName((TypeElement) element));
+        }
+
+        for (Element enclosed : element.getEnclosedElements()) {
+            addImplementations(enclosed, indexedMirror, classes);
+        }
+    }
+
+    private void addCompiledClasses(Element element) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+
+        compiledClasses.add(getBinaryName((TypeElement) element));
+        for (Element enclosed : element.getEnclosedElements()) {
+            addCompiledClasses(enclosed);
+        }
+    }
+
+    private String getBinaryName(TypeElement element) {
+        return processingEnv.getElementUtils().getBinaryName(element).toString();
+    }
+
+    private void writeIndex() {
+        for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+            try {
+                entry.getValue().addAll(readExistingIndex(entry.getKey()));
+
+                FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_DIRECTORY + entry.getKey());
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8))) {
+                    for (String className : entry.getValue()) {
+                        writer.write(className);
+                        writer.write('\n');
+                    }
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write the class index for " + entry.getKey() + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Reads the index written by a previous build, leaving out the classes that were compiled again or have been removed.
+     */
+    private Set<String> readExistingIndex(String typeName) {
+        Set<String> classes = new TreeSet<>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_DIRECTORY + typeName);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.openInputStream(), StandardCharsets.UTF_8))) {
+                String className;
+                while ((className = reader.readLine()) != null) {
+                    if (className.isEmpty() || compiledClasses.contains(className)) {
+                        continue;
+                    }
+                    // Nested classes are looked up by their canonical name
+                    if (processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) != null) {
+                        classes.add(className);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // No previous build
+        }
+        return classes;
+    }
+}
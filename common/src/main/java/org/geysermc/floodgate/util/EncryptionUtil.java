@@ -38,17 +38,23 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 
 public class EncryptionUtil {
+    /*
+     * Getting a Cipher or KeyGenerator looks up a provider every time, so each thread keeps its own instances.
+     * They are initialized again with the right key on every use.
+     */
+    private static final ThreadLocal<Cipher> RSA_CIPHER = new ThreadLocal<>();
+    private static final ThreadLocal<Cipher> AES_CIPHER = new ThreadLocal<>();
+    private static final ThreadLocal<KeyGenerator> AES_KEY_GENERATOR = new ThreadLocal<>();
+
     public static String encrypt(Key key, String data) throws IllegalBlockSizeException,
             InvalidKeyException, BadPaddingException, NoSuchAlgorithmException, NoSuchPaddingException {
-        KeyGenerator generator = KeyGenerator.getInstance("AES");
-        generator.init(128);
-        SecretKey secretKey = generator.generateKey();
+        SecretKey secretKey = getAesKeyGenerator().generateKey();
 
-        Cipher cipher = Cipher.getInstance("AES");
+        Cipher cipher = getCipher(AES_CIPHER, "AES");
         cipher.init(Cipher.ENCRYPT_MODE, secretKey);
         byte[] encryptedText = cipher.doFinal(data.getBytes());
 
-        cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+        cipher = getCipher(RSA_CIPHER, "RSA/ECB/PKCS1Padding");
         cipher.init(key instanceof PublicKey ? Cipher.PUBLIC_KEY : Cipher.PRIVATE_KEY, key);
         return Base64.getEncoder().encodeToString(cipher.doFinal(secretKey.getEncoded())) + '\0' +
                 Base64.getEncoder().encodeToString(encryptedText);
@@ -66,12 +72,12 @@ public class EncryptionUtil {
             throw new IllegalArgumentException("Expected two arguments, got " + split.length);
         }
 
-        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+        Cipher cipher = getCipher(RSA_CIPHER, "RSA/ECB/PKCS1Padding");
         cipher.init(key instanceof PublicKey ? Cipher.PUBLIC_KEY : Cipher.PRIVATE_KEY, key);
         byte[] decryptedKey = cipher.doFinal(Base64.getDecoder().decode(split[0]));
 
         SecretKey secretKey = new SecretKeySpec(decryptedKey, 0, decryptedKey.length, "AES");
-        cipher = Cipher.getInstance("AES");
+        cipher = getCipher(AES_CIPHER, "AES");
         cipher.init(Cipher.DECRYPT_MODE, secretKey);
         return cipher.doFinal(Base64.getDecoder().decode(split[1]));
     }
@@ -98,4 +104,23 @@ public class EncryptionUtil {
                 keyFactory.generatePrivate(keySpec)
         );
     }
+
+    private static Cipher getCipher(ThreadLocal<Cipher> threadLocal, String transformation) throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = threadLocal.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation);
+            threadLocal.set(cipher);
+        }
+        return cipher;
+    }
+
+    private static KeyGenerator getAesKeyGenerator() throws NoSuchAlgorithmException {
+        KeyGenerator generator = AES_KEY_GENERATOR.get();
+        if (generator == null) {
+            generator = KeyGenerator.getInstance("AES");
+            generator.init(128);
+            AES_KEY_GENERATOR.set(generator);
+        }
+        return generator;
+    }
 }
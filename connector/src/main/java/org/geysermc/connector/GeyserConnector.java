@@ -41,6 +41,9 @@ import org.geysermc.connector.configuration.GeyserConfiguration;
 import org.geysermc.connector.metrics.Metrics;
 import org.geysermc.connector.network.ConnectorServerEventHandler;
 import org.geysermc.connector.network.remote.RemoteServer;
+import org.geysermc.connector.network.session.AuthenticationQueue;
+import org.geysermc.connector.network.session.DownstreamClientSession;
+import org.geysermc.connector.network.session.TickDriver;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.BiomeTranslator;
 import org.geysermc.connector.network.translators.EntityIdentifierRegistry;
@@ -61,12 +64,17 @@ import org.geysermc.connector.utils.DimensionUtils;
 import org.geysermc.connector.utils.LanguageUtils;
 import org.geysermc.connector.utils.LocaleUtils;
 import org.geysermc.connector.utils.ResourcePack;
+import org.geysermc.floodgate.util.EncryptionUtil;
 
 import javax.naming.directory.Attribute;
 import javax.naming.directory.InitialDirContext;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -102,10 +110,16 @@ public class GeyserConnector {
     private RemoteServer remoteServer;
     @Setter
     private AuthType authType;
+    /**
+     * The Floodgate public key, loaded once on startup when Floodgate authentication is used
+     */
+    private PublicKey floodgateKey;
 
     private boolean shuttingDown = false;
 
     private final ScheduledExecutorService generalThreadPool;
+    private final TickDriver tickDriver;
+    private final AuthenticationQueue authenticationQueue;
 
     private BedrockServer bedrockServer;
     private final PlatformType platformType;
@@ -136,6 +150,8 @@ public class GeyserConnector {
         logger.info("******************************************");
 
         this.generalThreadPool = Executors.newScheduledThreadPool(config.getGeneralThreadPool());
+        this.tickDriver = new TickDriver();
+        this.authenticationQueue = new AuthenticationQueue(this, config.getAuthenticationThreads());
 
         logger.setDebug(config.isDebugMode());
 
@@ -194,6 +210,14 @@ public class GeyserConnector {
 
         remoteServer = new RemoteServer(config.getRemote().getAddress(), remotePort);
         authType = AuthType.getByName(config.getRemote().getAuthType());
+        if (authType == AuthType.FLOODGATE) {
+            try {
+                floodgateKey = EncryptionUtil.getKeyFromFile(config.getFloodgateKeyPath(), PublicKey.class);
+                logger.info(LanguageUtils.getLocaleStringLog("geyser.auth.floodgate.loaded_key"));
+            } catch (IOException | InvalidKeySpecException | NoSuchAlgorithmException e) {
+                logger.error(LanguageUtils.getLocaleStringLog("geyser.auth.floodgate.bad_key"), e);
+            }
+        }
 
         DimensionUtils.changeBedrockNetherId(config.isAboveBedrockNetherBuilding()); // Apply End dimension ID workaround to Nether
         SkullBlockEntityTranslator.ALLOW_CUSTOM_SKULLS = config.isAllowCustomSkulls();
@@ -316,11 +340,16 @@ public class GeyserConnector {
             }
         }
 
+        authenticationQueue.shutdown();
         generalThreadPool.shutdown();
         bedrockServer.close();
+        tickDriver.shutdown();
+        // After the Bedrock server, as session disconnect handlers run on the session's event loop
+        DownstreamClientSession.shutdownEventLoopGroup();
         players.clear();
         remoteServer = null;
         authType = null;
+        floodgateKey = null;
         this.getCommandManager().getCommands().clear();
 
         bootstrap.getGeyserLogger().info(LanguageUtils.getLocaleStringLog("geyser.core.shutdown.done"));
@@ -459,16 +488,14 @@ public class GeyserConnector {
     }
 
     /**
-     * Whether to use XML reflections in the jar or manually find the reflections.
-     * Will return true if the version number is not 'DEV' and the platform is not Fabric.
-     * On Fabric - it complains about being unable to create a default XMLReader.
-     * On other platforms this should only be true in compiled jars.
+     * Reflections are no longer used; the classes Geyser needs are indexed at compile time instead.
      *
-     * @return whether to use XML reflections
+     * @return always false
+     * @deprecated kept for platforms that still call it, and will be removed
      */
+    @Deprecated
     public boolean useXmlReflections() {
-        //noinspection ConstantConditions
-        return !this.getPlatformType().equals(PlatformType.FABRIC) && !"DEV".equals(GeyserConnector.VERSION);
+        return false;
     }
 
     public static GeyserConnector getInstance() {
@@ -65,6 +65,8 @@ public interface GeyserConfiguration {
 
     int getGeneralThreadPool();
 
+    int getAuthenticationThreads();
+
     boolean isAllowThirdPartyCapes();
 
     boolean isAllowThirdPartyEars();
@@ -81,6 +83,18 @@ public interface GeyserConfiguration {
 
     boolean isCacheChunks();
 
+    int getChunkSectionCacheSize();
+
+    int getMaxChunksPerTick();
+
+    int getMaxChunkCacheSizePerPlayer();
+
+    int getMaxChunkCacheSize();
+
+    int getChunkCacheSpillSize();
+
+    boolean isClientSideProjectiles();
+
     boolean isForceResourcePacks();
 
     boolean isXboxAchievementsEnabled();
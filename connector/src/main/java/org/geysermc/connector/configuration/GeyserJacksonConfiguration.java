@@ -83,6 +83,9 @@ public abstract class GeyserJacksonConfiguration implements GeyserConfiguration
     @JsonProperty("general-thread-pool")
     private int generalThreadPool = 32;
 
+    @JsonProperty("authentication-threads")
+    private int authenticationThreads = 4;
+
     @JsonProperty("allow-third-party-capes")
     private boolean allowThirdPartyCapes = true;
 
@@ -101,6 +104,24 @@ public abstract class GeyserJacksonConfiguration implements GeyserConfiguration
     @JsonProperty("cache-chunks")
     private boolean cacheChunks = false;
 
+    @JsonProperty("chunk-section-cache-size")
+    private int chunkSectionCacheSize = 32;
+
+    @JsonProperty("max-chunks-per-tick")
+    private int maxChunksPerTick = 16;
+
+    @JsonProperty("max-chunk-cache-size-per-player")
+    private int maxChunkCacheSizePerPlayer = 32;
+
+    @JsonProperty("max-chunk-cache-size")
+    private int maxChunkCacheSize = 1024;
+
+    @JsonProperty("chunk-cache-spill-size")
+    private int chunkCacheSpillSize = 0;
+
+    @JsonProperty("client-side-projectiles")
+    private boolean clientSideProjectiles = false;
+
     @JsonProperty("cache-images")
     private int cacheImages = 0;
 
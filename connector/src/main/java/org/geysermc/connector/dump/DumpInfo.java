@@ -35,6 +35,7 @@ import org.geysermc.connector.common.serializer.AsteriskSerializer;
 import org.geysermc.connector.configuration.GeyserConfiguration;
 import org.geysermc.connector.network.BedrockProtocol;
 import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.translators.PacketTranslatorRegistry;
 import org.geysermc.connector.utils.DockerCheck;
 import org.geysermc.connector.utils.FileUtils;
 import org.geysermc.floodgate.util.DeviceOS;
@@ -44,6 +45,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.Map;
 import java.util.Properties;
 
 @Getter
@@ -58,6 +60,7 @@ public class DumpInfo {
     private Object2IntMap<DeviceOS> userPlatforms;
     private RamInfo ramInfo;
     private final BootstrapDumpInfo bootstrapInfo;
+    private final PacketStatistics packetStatistics;
 
     public DumpInfo() {
         this.versionInfo = new DumpInfo.VersionInfo();
@@ -78,6 +81,20 @@ public class DumpInfo {
         }
 
         this.bootstrapInfo = GeyserConnector.getInstance().getBootstrap().getDumpInfo();
+
+        this.packetStatistics = new PacketStatistics();
+    }
+
+    @Getter
+    public static class PacketStatistics {
+
+        private final Map<String, PacketTranslatorRegistry.TranslatorSlot> java;
+        private final Map<String, PacketTranslatorRegistry.TranslatorSlot> bedrock;
+
+        PacketStatistics() {
+            this.java = PacketTranslatorRegistry.JAVA_TRANSLATOR.getStatistics();
+            this.bedrock = PacketTranslatorRegistry.BEDROCK_TRANSLATOR.getStatistics();
+        }
     }
 
     @Getter
@@ -112,7 +112,7 @@ public class BoatEntity extends Entity {
                 // Java sends simply "true" and "false" (is_paddling_left), Bedrock keeps sending packets as you're rowing
                 // This is an asynchronous method that emulates Bedrock rowing until "false" is sent.
                 paddleTimeLeft = 0f;
-                session.getConnector().getGeneralThreadPool().execute(() ->
+                session.getEventLoop().execute(() ->
                         updateLeftPaddle(session, entityMetadata)
                 );
             }
@@ -123,7 +123,7 @@ public class BoatEntity extends Entity {
                 metadata.put(EntityData.ROW_TIME_RIGHT, 0f);
             } else {
                 paddleTimeRight = 0f;
-                session.getConnector().getGeneralThreadPool().execute(() ->
+                session.getEventLoop().execute(() ->
                         updateRightPaddle(session, entityMetadata)
                 );
             }
@@ -140,7 +140,7 @@ public class BoatEntity extends Entity {
             paddleTimeLeft += ROWING_SPEED;
             metadata.put(EntityData.ROW_TIME_LEFT, paddleTimeLeft);
             super.updateBedrockMetadata(entityMetadata, session);
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.schedule(() ->
                     updateLeftPaddle(session, entityMetadata),
                     100,
                     TimeUnit.MILLISECONDS
@@ -152,7 +152,7 @@ public class BoatEntity extends Entity {
             paddleTimeRight += ROWING_SPEED;
             metadata.put(EntityData.ROW_TIME_RIGHT, paddleTimeRight);
             super.updateBedrockMetadata(entityMetadata, session);
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.schedule(() ->
                             updateRightPaddle(session, entityMetadata),
                     100,
                     TimeUnit.MILLISECONDS
@@ -42,6 +42,7 @@ import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlags;
 import com.nukkitx.protocol.bedrock.packet.*;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import net.kyori.adventure.text.Component;
@@ -55,14 +56,13 @@ import org.geysermc.connector.network.translators.item.ItemRegistry;
 import org.geysermc.connector.utils.AttributeUtils;
 import org.geysermc.connector.network.translators.chat.MessageTranslator;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @Getter
 @Setter
 public class Entity {
+    private static final EntityFlag[] ALL_FLAGS = EntityFlag.values();
+
     /**
      * Entity id reported by Java Edition server.
      * Globally unique across Geyser sessions
@@ -97,6 +97,16 @@ public class Entity {
     protected Map<AttributeType, Attribute> attributes = new HashMap<>();
     protected EntityDataMap metadata = new EntityDataMap();
 
+    /**
+     * The metadata the client last received, so only what changed since then needs to be sent
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<EntityData, Object> sentMetadata = new EnumMap<>(EntityData.class);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Set<EntityFlag> sentFlags = EnumSet.noneOf(EntityFlag.class);
+
     public Entity(long entityId, long geyserId, EntityType entityType, Vector3f position, Vector3f motion, Vector3f rotation) {
         this.entityId = entityId;
         this.geyserId = geyserId;
@@ -136,6 +146,7 @@ public class Entity {
 
         valid = true;
         session.sendUpstreamPacket(addEntityPacket);
+        markMetadataSent();
 
         session.getConnector().getLogger().debug("Spawned entity " + entityType + " at location " + position + " with id " + geyserId + " (java id " + entityId + ")");
     }
@@ -161,6 +172,11 @@ public class Entity {
         session.sendUpstreamPacket(removeEntityPacket);
 
         valid = false;
+        // Everything is sent again if the entity is spawned again
+        sentMetadata.clear();
+        sentFlags.clear();
+        session.getEntityMovementBuffer().discard(this);
+        session.getEntityInterestManager().discard(this);
         return true;
     }
 
@@ -173,14 +189,7 @@ public class Entity {
         setOnGround(isOnGround);
         this.position = Vector3f.from(position.getX() + relX, position.getY() + relY, position.getZ() + relZ);
 
-        MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
-        moveEntityPacket.setRuntimeEntityId(geyserId);
-        moveEntityPacket.setPosition(position);
-        moveEntityPacket.setRotation(getBedrockRotation());
-        moveEntityPacket.setOnGround(isOnGround);
-        moveEntityPacket.setTeleported(false);
-
-        session.sendUpstreamPacket(moveEntityPacket);
+        session.getEntityMovementBuffer().move(this, false);
     }
 
     public void moveAbsolute(GeyserSession session, Vector3f position, float yaw, float pitch, boolean isOnGround, boolean teleported) {
@@ -192,14 +201,7 @@ public class Entity {
         setRotation(rotation);
         setOnGround(isOnGround);
 
-        MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
-        moveEntityPacket.setRuntimeEntityId(geyserId);
-        moveEntityPacket.setPosition(position);
-        moveEntityPacket.setRotation(getBedrockRotation());
-        moveEntityPacket.setOnGround(isOnGround);
-        moveEntityPacket.setTeleported(teleported);
-
-        session.sendUpstreamPacket(moveEntityPacket);
+        session.getEntityMovementBuffer().move(this, teleported);
     }
 
     /**
@@ -356,16 +358,75 @@ public class Entity {
     }
 
     /**
-     * Sends the Bedrock metadata to the client
+     * Sends the Bedrock metadata that changed since it was last sent to the client
      * @param session GeyserSession
      */
     public void updateBedrockMetadata(GeyserSession session) {
         if (!valid) return;
 
+        if (!session.getEntityInterestManager().shouldUpdate(this)) {
+            // Too far away to be worth sending every change
+            session.getEntityInterestManager().deferMetadata(this);
+            return;
+        }
+
         SetEntityDataPacket entityDataPacket = new SetEntityDataPacket();
         entityDataPacket.setRuntimeEntityId(geyserId);
-        entityDataPacket.getMetadata().putAll(metadata);
-        session.sendUpstreamPacket(entityDataPacket);
+        EntityDataMap changedMetadata = entityDataPacket.getMetadata();
+
+        sentMetadata.keySet().retainAll(metadata.keySet());
+        for (Map.Entry<EntityData, Object> entry : metadata.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof EntityFlags) {
+                // The flags are changed in place, so they are compared with a copy
+                if (updateSentFlags((EntityFlags) value)) {
+                    changedMetadata.putFlags((EntityFlags) value);
+                }
+                continue;
+            }
+
+            Object sentValue = sentMetadata.put(entry.getKey(), value);
+            if (!value.equals(sentValue)) {
+                changedMetadata.put(entry.getKey(), value);
+            }
+        }
+
+        if (!changedMetadata.isEmpty()) {
+            session.sendUpstreamPacket(entityDataPacket);
+        }
+    }
+
+    /**
+     * Call after the full metadata has been sent to the client, such as when spawning the entity
+     */
+    protected void markMetadataSent() {
+        sentMetadata.clear();
+        for (Map.Entry<EntityData, Object> entry : metadata.entrySet()) {
+            if (entry.getValue() instanceof EntityFlags) {
+                updateSentFlags((EntityFlags) entry.getValue());
+            } else {
+                sentMetadata.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return true if any flag is different from what the client last received
+     */
+    private boolean updateSentFlags(EntityFlags flags) {
+        boolean changed = false;
+        for (EntityFlag flag : ALL_FLAGS) {
+            boolean value = flags.getFlag(flag);
+            if (value != sentFlags.contains(flag)) {
+                changed = true;
+                if (value) {
+                    sentFlags.add(flag);
+                } else {
+                    sentFlags.remove(flag);
+                }
+            }
+        }
+        return changed;
     }
 
     /**
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.entity;
+
+import com.nukkitx.math.vector.Vector3f;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import org.geysermc.connector.network.session.GeyserSession;
+
+/**
+ * Decides how often the updates of an entity are worth sending, based on its distance from the player. Entities
+ * within {@link #NEAR_DISTANCE} blocks are updated every tick; entities further away only every
+ * {@link #FAR_UPDATE_INTERVAL} ticks, with any updates in between merged into one. Once an entity comes near, its
+ * latest state is sent on the next tick.
+ *
+ * Not thread-safe - it may only be accessed on the session's event loop.
+ */
+public class EntityInterestManager {
+    private static final int NEAR_DISTANCE = 32;
+    private static final int NEAR_DISTANCE_SQUARED = NEAR_DISTANCE * NEAR_DISTANCE;
+    private static final int FAR_UPDATE_INTERVAL = 4;
+
+    private final GeyserSession session;
+
+    /**
+     * Entities with metadata changes that have not been sent yet, keyed by Geyser ID
+     */
+    private final Long2ObjectMap<Entity> deferredMetadata = new Long2ObjectLinkedOpenHashMap<>();
+
+    private long currentTick;
+
+    public EntityInterestManager(GeyserSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @return true if the updates of this entity should be sent this tick
+     */
+    public boolean shouldUpdate(Entity entity) {
+        if (entity == session.getPlayerEntity()) {
+            return true;
+        }
+        // Spread far away entities over the interval instead of updating them all on the same tick
+        if ((currentTick + entity.getGeyserId()) % FAR_UPDATE_INTERVAL == 0) {
+            return true;
+        }
+        Vector3f playerPosition = session.getPlayerEntity().getPosition();
+        return playerPosition.distanceSquared(entity.getPosition()) <= NEAR_DISTANCE_SQUARED;
+    }
+
+    /**
+     * Send the metadata of this entity on the next tick that it should be updated.
+     */
+    public void deferMetadata(Entity entity) {
+        deferredMetadata.put(entity.getGeyserId(), entity);
+    }
+
+    public void discard(Entity entity) {
+        deferredMetadata.remove(entity.getGeyserId());
+    }
+
+    public void clear() {
+        deferredMetadata.clear();
+    }
+
+    /**
+     * Called every tick, before entity movement is sent - sends the deferred metadata that is now due
+     */
+    public void tick() {
+        currentTick++;
+        if (deferredMetadata.isEmpty()) {
+            return;
+        }
+
+        for (Entity entity : deferredMetadata.values().toArray(new Entity[0])) {
+            if (shouldUpdate(entity)) {
+                deferredMetadata.remove(entity.getGeyserId());
+                entity.updateBedrockMetadata(session);
+            }
+        }
+    }
+}
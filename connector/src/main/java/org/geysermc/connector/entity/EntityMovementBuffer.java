@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.entity;
+
+import com.nukkitx.math.vector.Vector3f;
+import com.nukkitx.protocol.bedrock.packet.MoveEntityAbsolutePacket;
+import com.nukkitx.protocol.bedrock.packet.MoveEntityDeltaPacket;
+import com.nukkitx.protocol.bedrock.packet.SetEntityMotionPacket;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import lombok.AllArgsConstructor;
+import org.geysermc.connector.network.session.GeyserSession;
+
+import java.util.Set;
+
+/**
+ * Buffers the entity movement of a session for the rest of the tick. An entity that moves multiple times in one tick
+ * only sends its final position, and only the components that changed since the client last received them. How often
+ * an entity's movement is sent is decided by the {@link EntityInterestManager}.
+ *
+ * Not thread-safe - it may only be accessed on the session's event loop.
+ */
+public class EntityMovementBuffer {
+
+    private final GeyserSession session;
+
+    private final Long2ObjectMap<PendingMovement> pendingMovements = new Long2ObjectLinkedOpenHashMap<>();
+    /**
+     * The movement the client last received for each entity, keyed by Geyser ID
+     */
+    private final Long2ObjectMap<SentMovement> sentMovements = new Long2ObjectOpenHashMap<>();
+
+    public EntityMovementBuffer(GeyserSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Queue the current position and rotation of the entity to be sent at the end of the tick.
+     *
+     * @param entity the entity that moved
+     * @param teleported if the client should not interpolate to the new position
+     */
+    public void move(Entity entity, boolean teleported) {
+        moveTo(entity, null, null, teleported);
+    }
+
+    /**
+     * Queue a position and rotation to be shown for the entity instead of its actual ones, such as a villager
+     * lying in a bed.
+     *
+     * @param position the position to show, or null for the entity's own
+     * @param rotation the Bedrock rotation to show, or null for the entity's own
+     * @param teleported if the client should not interpolate to the new position
+     */
+    public void moveTo(Entity entity, Vector3f position, Vector3f rotation, boolean teleported) {
+        PendingMovement pendingMovement = getPendingMovement(entity);
+        pendingMovement.teleported |= teleported;
+        pendingMovement.position = position;
+        pendingMovement.rotation = rotation;
+    }
+
+    /**
+     * Queue the motion of the entity to be sent right after its pending movement, so the client applies it from the
+     * position it goes with.
+     */
+    public void setMotion(Entity entity, Vector3f motion) {
+        getPendingMovement(entity).motion = motion;
+    }
+
+    private PendingMovement getPendingMovement(Entity entity) {
+        PendingMovement pendingMovement = pendingMovements.get(entity.getGeyserId());
+        if (pendingMovement == null) {
+            pendingMovement = new PendingMovement(entity);
+            pendingMovements.put(entity.getGeyserId(), pendingMovement);
+        } else {
+            pendingMovement.entity = entity;
+        }
+        return pendingMovement;
+    }
+
+    /**
+     * Drop the pending movement of this entity and forget what the client last received. Used when the entity is
+     * despawned, or when its movement was sent some other way.
+     */
+    public void discard(Entity entity) {
+        pendingMovements.remove(entity.getGeyserId());
+        sentMovements.remove(entity.getGeyserId());
+    }
+
+    public void clear() {
+        pendingMovements.clear();
+        sentMovements.clear();
+    }
+
+    /**
+     * Called every tick - sends the movement of every entity that moved
+     */
+    public void tick() {
+        if (pendingMovements.isEmpty()) {
+            return;
+        }
+
+        EntityInterestManager interestManager = session.getEntityInterestManager();
+        ObjectIterator<PendingMovement> iterator = pendingMovements.values().iterator();
+        while (iterator.hasNext()) {
+            PendingMovement pendingMovement = iterator.next();
+            if (!pendingMovement.entity.isValid()) {
+                iterator.remove();
+            } else if (interestManager.shouldUpdate(pendingMovement.entity)) {
+                // Entities that are far away keep their movement pending until they are due
+                iterator.remove();
+                send(pendingMovement);
+            }
+        }
+    }
+
+    private void send(PendingMovement pendingMovement) {
+        sendMovement(pendingMovement);
+
+        if (pendingMovement.motion != null) {
+            SetEntityMotionPacket entityMotionPacket = new SetEntityMotionPacket();
+            entityMotionPacket.setRuntimeEntityId(pendingMovement.entity.getGeyserId());
+            entityMotionPacket.setMotion(pendingMovement.motion);
+            session.sendUpstreamPacket(entityMotionPacket);
+        }
+    }
+
+    private void sendMovement(PendingMovement pendingMovement) {
+        Entity entity = pendingMovement.entity;
+        Vector3f position = pendingMovement.position != null ? pendingMovement.position : entity.getPosition();
+        // x = Pitch, y = Yaw, z = HeadYaw
+        Vector3f rotation = pendingMovement.rotation != null ? pendingMovement.rotation : entity.getBedrockRotation();
+        boolean onGround = entity.isOnGround();
+
+        SentMovement sent = sentMovements.get(entity.getGeyserId());
+        if (pendingMovement.teleported) {
+            MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
+            moveEntityPacket.setRuntimeEntityId(entity.getGeyserId());
+            moveEntityPacket.setPosition(position);
+            moveEntityPacket.setRotation(rotation);
+            moveEntityPacket.setOnGround(onGround);
+            moveEntityPacket.setTeleported(true);
+            session.sendUpstreamPacket(moveEntityPacket);
+        } else {
+            MoveEntityDeltaPacket moveEntityPacket = new MoveEntityDeltaPacket();
+            moveEntityPacket.setRuntimeEntityId(entity.getGeyserId());
+            Set<MoveEntityDeltaPacket.Flag> flags = moveEntityPacket.getFlags();
+            if (sent == null || sent.position.getX() != position.getX()) {
+                flags.add(MoveEntityDeltaPacket.Flag.HAS_X);
+                moveEntityPacket.setX(position.getX());
+            }
+            if (sent == null || sent.position.getY() != position.getY()) {
+                flags.add(MoveEntityDeltaPacket.Flag.HAS_Y);
+                moveEntityPacket.setY(position.getY());
+            }
+            if (sent == null || sent.position.getZ() != position.getZ()) {
+                flags.add(MoveEntityDeltaPacket.Flag.HAS_Z);
+                moveEntityPacket.setZ(position.getZ());
+            }
+            // Rotations are sent as a byte, so smaller changes would not reach the client anyway
+            if (sent == null || toByteAngle(sent.rotation.getX()) != toByteAngle(rotation.getX())) {
+                flags.add(MoveEntityDeltaPacket.Flag.HAS_PITCH);
+                moveEntityPacket.setPitch(rotation.getX());
+            }
+            if (sent == null || toByteAngle(sent.rotation.getY()) != toByteAngle(rotation.getY())) {
+                flags.add(MoveEntityDeltaPacket.Flag.HAS_YAW);
+                moveEntityPacket.setYaw(rotation.getY());
+            }
+            if (sent == null || toByteAngle(sent.rotation.getZ()) != toByteAngle(rotation.getZ())) {
+                flags.add(MoveEntityDeltaPacket.Flag.HAS_HEAD_YAW);
+                moveEntityPacket.setHeadYaw(rotation.getZ());
+            }
+
+            if (flags.isEmpty() && sent.onGround == onGround) {
+                // Nothing the client can see has changed
+                return;
+            }
+            if (onGround) {
+                flags.add(MoveEntityDeltaPacket.Flag.ON_GROUND);
+            }
+            session.sendUpstreamPacket(moveEntityPacket);
+        }
+
+        sentMovements.put(entity.getGeyserId(), new SentMovement(position, rotation, onGround));
+    }
+
+    private static int toByteAngle(float angle) {
+        return (byte) (angle / (360f / 256f));
+    }
+
+    private static class PendingMovement {
+        private Entity entity;
+        private boolean teleported;
+        private Vector3f position;
+        private Vector3f rotation;
+        private Vector3f motion;
+
+        private PendingMovement(Entity entity) {
+            this.entity = entity;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class SentMovement {
+        private final Vector3f position;
+        private final Vector3f rotation;
+        private final boolean onGround;
+    }
+}
@@ -64,6 +64,7 @@ public class ItemEntity extends Entity {
             itemPacket.getMetadata().putAll(metadata);
             itemPacket.setItemInHand(ItemTranslator.translateToBedrock(session, (ItemStack) entityMetadata.getValue()));
             session.sendUpstreamPacket(itemPacket);
+            markMetadataSent();
         }
 
         super.updateBedrockMetadata(entityMetadata, session);
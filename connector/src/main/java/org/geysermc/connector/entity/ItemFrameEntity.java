@@ -41,6 +41,7 @@ import org.geysermc.connector.network.translators.item.ItemEntry;
 import org.geysermc.connector.network.translators.item.ItemRegistry;
 import org.geysermc.connector.network.translators.item.ItemTranslator;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+import org.geysermc.connector.utils.ChunkUtils;
 
 import java.util.concurrent.TimeUnit;
 
@@ -84,7 +85,7 @@ public class ItemFrameEntity extends Entity {
     public void spawnEntity(GeyserSession session) {
         session.getItemFrameCache().put(bedrockPosition, entityId);
         // Delay is required, or else loading in frames on chunk load is sketchy at best
-        session.getConnector().getGeneralThreadPool().schedule(() -> {
+        session.schedule(() -> {
             updateBlock(session);
             session.getConnector().getLogger().debug("Spawned item frame at location " + bedrockPosition + " with java id " + entityId);
         }, 500, TimeUnit.MILLISECONDS);
@@ -161,6 +162,9 @@ public class ItemFrameEntity extends Entity {
      * @param session GeyserSession.
      */
     public void updateBlock(GeyserSession session) {
+        // Don't let an older block update or chunk that is still waiting to be sent replace the item frame
+        ChunkUtils.flushPendingBlock(session, bedrockPosition);
+
         UpdateBlockPacket updateBlockPacket = new UpdateBlockPacket();
         updateBlockPacket.setDataLayer(0);
         updateBlockPacket.setBlockPosition(bedrockPosition);
@@ -47,4 +47,10 @@ public class ItemedFireballEntity extends ThrowableEntity {
         float drag = getDrag(session);
         motion = motion.add(acceleration).mul(drag);
     }
+
+    @Override
+    protected boolean isClientSimulated(GeyserSession session) {
+        // Bedrock clients don't know about the acceleration of fireballs
+        return false;
+    }
 }
@@ -32,10 +32,7 @@ import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import org.geysermc.connector.entity.type.EntityType;
 import org.geysermc.connector.network.session.GeyserSession;
 
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-
-public class TNTEntity extends Entity {
+public class TNTEntity extends Entity implements Tickable {
 
     private int currentTick;
 
@@ -49,16 +46,20 @@ public class TNTEntity extends Entity {
             currentTick = (int) entityMetadata.getValue();
             metadata.getFlags().setFlag(EntityFlag.IGNITED, true);
             metadata.put(EntityData.FUSE_LENGTH, currentTick);
-            ScheduledFuture<?> future = session.getConnector().getGeneralThreadPool().scheduleAtFixedRate(() -> {
-                if (currentTick % 5 == 0) {
-                    metadata.put(EntityData.FUSE_LENGTH, currentTick);
-                }
-                currentTick--;
-                super.updateBedrockMetadata(entityMetadata, session);
-            }, 50, 50, TimeUnit.MILLISECONDS); // 5 ticks
-            session.getConnector().getGeneralThreadPool().schedule(() -> future.cancel(true), (int) entityMetadata.getValue() / 20, TimeUnit.SECONDS);
         }
 
         super.updateBedrockMetadata(entityMetadata, session);
     }
+
+    @Override
+    public void tick(GeyserSession session) {
+        if (currentTick <= 0) {
+            return;
+        }
+        if (currentTick % 5 == 0) { // 5 ticks
+            metadata.put(EntityData.FUSE_LENGTH, currentTick);
+            updateBedrockMetadata(session);
+        }
+        currentTick--;
+    }
 }
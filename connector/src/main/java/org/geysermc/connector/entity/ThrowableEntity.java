@@ -29,6 +29,7 @@ import com.nukkitx.math.vector.Vector3f;
 import com.nukkitx.protocol.bedrock.data.LevelEventType;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import com.nukkitx.protocol.bedrock.packet.LevelEventPacket;
+import com.nukkitx.protocol.bedrock.packet.SetEntityMotionPacket;
 import org.geysermc.connector.entity.type.EntityType;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
@@ -37,6 +38,10 @@ import org.geysermc.connector.network.translators.world.block.BlockTranslator;
  * Used as a class for any object-like entity that moves as a projectile
  */
 public class ThrowableEntity extends Entity implements Tickable {
+    /**
+     * How far, in blocks, the position simulated by the client may be from the server's before it is corrected
+     */
+    private static final float MAX_CLIENT_DIVERGENCE = 1.0f;
 
     private Vector3f lastPosition;
 
@@ -52,12 +57,53 @@ public class ThrowableEntity extends Entity implements Tickable {
      */
     @Override
     public void tick(GeyserSession session) {
+        if (isClientSimulated(session)) {
+            // Follow the client's simulation without sending anything, so we know when it needs correcting
+            position = position.add(motion);
+            motion = motion.mul(getAirDrag()).down(getGravity());
+            return;
+        }
         super.moveRelative(session, motion.getX(), motion.getY(), motion.getZ(), rotation, onGround);
         float drag = getDrag(session);
         float gravity = getGravity();
         motion = motion.mul(drag).down(gravity);
     }
 
+    @Override
+    public void spawnEntity(GeyserSession session) {
+        super.spawnEntity(session);
+        if (isClientSimulated(session)) {
+            sendMotion(session);
+        }
+    }
+
+    /**
+     * @return true if the Bedrock client simulates the flight of this entity itself, and it is only corrected when it
+     * strays too far from the position on the server.
+     */
+    protected boolean isClientSimulated(GeyserSession session) {
+        return session.getConnector().getConfig().isClientSideProjectiles();
+    }
+
+    private void moveClientSimulated(GeyserSession session, Vector3f serverPosition, Vector3f rotation, boolean isOnGround) {
+        lastPosition = serverPosition;
+        if (position.distanceSquared(serverPosition) > MAX_CLIENT_DIVERGENCE * MAX_CLIENT_DIVERGENCE) {
+            super.moveAbsolute(session, serverPosition, rotation, isOnGround, false);
+            // Continue the client's simulation from the corrected position, which is only sent at the end of the tick
+            session.getEntityMovementBuffer().setMotion(this, motion);
+        } else {
+            setRotation(rotation);
+            setOnGround(isOnGround);
+        }
+    }
+
+    private void sendMotion(GeyserSession session) {
+        SetEntityMotionPacket entityMotionPacket = new SetEntityMotionPacket();
+        entityMotionPacket.setRuntimeEntityId(geyserId);
+        entityMotionPacket.setMotion(motion);
+        session.sendUpstreamPacket(entityMotionPacket);
+    }
+
     protected void moveAbsoluteImmediate(GeyserSession session, Vector3f position, Vector3f rotation, boolean isOnGround, boolean teleported) {
         super.moveAbsolute(session, position, rotation, isOnGround, teleported);
     }
@@ -93,20 +139,26 @@ public class ThrowableEntity extends Entity implements Tickable {
     protected float getDrag(GeyserSession session) {
         if (isInWater(session)) {
             return 0.8f;
-        } else {
-            switch (entityType) {
-                case THROWN_POTION:
-                case LINGERING_POTION:
-                case THROWN_EXP_BOTTLE:
-                case SNOWBALL:
-                case THROWN_EGG:
-                case THROWN_ENDERPEARL:
-                    return 0.99f;
-                case FIREBALL:
-                case SMALL_FIREBALL:
-                case DRAGON_FIREBALL:
-                    return 0.95f;
-            }
+        }
+        return getAirDrag();
+    }
+
+    /**
+     * @return the drag that should be multiplied to the entity's motion while it is not in water
+     */
+    protected float getAirDrag() {
+        switch (entityType) {
+            case THROWN_POTION:
+            case LINGERING_POTION:
+            case THROWN_EXP_BOTTLE:
+            case SNOWBALL:
+            case THROWN_EGG:
+            case THROWN_ENDERPEARL:
+                return 0.99f;
+            case FIREBALL:
+            case SMALL_FIREBALL:
+            case DRAGON_FIREBALL:
+                return 0.95f;
         }
         return 1;
     }
@@ -136,6 +188,10 @@ public class ThrowableEntity extends Entity implements Tickable {
 
     @Override
     public void moveRelative(GeyserSession session, double relX, double relY, double relZ, Vector3f rotation, boolean isOnGround) {
+        if (isClientSimulated(session)) {
+            moveClientSimulated(session, lastPosition.add(relX, relY, relZ), rotation, isOnGround);
+            return;
+        }
         position = lastPosition;
         super.moveRelative(session, relX, relY, relZ, rotation, isOnGround);
         lastPosition = position;
@@ -143,6 +199,10 @@ public class ThrowableEntity extends Entity implements Tickable {
 
     @Override
     public void moveAbsolute(GeyserSession session, Vector3f position, Vector3f rotation, boolean isOnGround, boolean teleported) {
+        if (isClientSimulated(session) && !teleported) {
+            moveClientSimulated(session, position, rotation, isOnGround);
+            return;
+        }
         super.moveAbsolute(session, position, rotation, isOnGround, teleported);
         lastPosition = position;
     }
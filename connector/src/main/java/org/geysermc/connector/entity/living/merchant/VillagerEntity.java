@@ -32,7 +32,6 @@ import com.nukkitx.math.vector.Vector3f;
 import com.nukkitx.math.vector.Vector3i;
 import com.nukkitx.protocol.bedrock.data.entity.EntityData;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
-import com.nukkitx.protocol.bedrock.packet.MoveEntityAbsolutePacket;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import org.geysermc.connector.entity.type.EntityType;
@@ -114,12 +113,9 @@ public class VillagerEntity extends AbstractMerchantEntity {
         setOnGround(isOnGround);
         this.position = Vector3f.from(position.getX() + relX, position.getY() + relY, position.getZ() + relZ);
 
-        MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
-        moveEntityPacket.setRuntimeEntityId(geyserId);
         //Sets Villager position and rotation when sleeping
         if (!metadata.getFlags().getFlag(EntityFlag.SLEEPING)) {
-            moveEntityPacket.setPosition(position);
-            moveEntityPacket.setRotation(getBedrockRotation());
+            session.getEntityMovementBuffer().move(this, false);
         } else {
             //String Setup
             Pattern r = Pattern.compile("facing=([a-z]+)");
@@ -147,11 +143,9 @@ public class VillagerEntity extends AbstractMerchantEntity {
                         break;
                 }
             }
-            moveEntityPacket.setRotation(Vector3f.from(0, 0, z));
-            moveEntityPacket.setPosition(Vector3f.from(position.getX() + bedPositionSubtractorW, position.getY(), position.getZ() + bedPositionSubtractorN));
+            // Sent like any other movement, so far away villagers are throttled too
+            session.getEntityMovementBuffer().moveTo(this, Vector3f.from(position.getX() + bedPositionSubtractorW, position.getY(), position.getZ() + bedPositionSubtractorN),
+                    Vector3f.from(0, 0, z), false);
         }
-        moveEntityPacket.setOnGround(isOnGround);
-        moveEntityPacket.setTeleported(false);
-        session.sendUpstreamPacket(moveEntityPacket);
     }
 }
@@ -118,6 +118,7 @@ public class PlayerEntity extends LivingEntity {
 
         valid = true;
         session.sendUpstreamPacket(addPlayerPacket);
+        markMetadataSent();
 
         updateEquipment(session);
         updateBedrockAttributes(session);
@@ -311,7 +312,7 @@ public class PlayerEntity extends LivingEntity {
                 linkPacket.setEntityLink(new EntityLinkData(geyserId, parrot.getGeyserId(), type, false));
                 // Delay, or else spawned-in players won't get the link
                 // TODO: Find a better solution. This problem also exists with item frames
-                session.getConnector().getGeneralThreadPool().schedule(() -> session.sendUpstreamPacket(linkPacket), 500, TimeUnit.MILLISECONDS);
+                session.schedule(() -> session.sendUpstreamPacket(linkPacket), 500, TimeUnit.MILLISECONDS);
                 if (entityMetadata.getId() == 18) {
                     leftParrot = parrot;
                 } else {
@@ -48,12 +48,27 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
         super(connector, session);
     }
 
+    /**
+     * Hands the packet over to the session's event loop, where it is translated alongside everything else of this session.
+     * Every upstream packet is handled on the event loop, so they are never reordered against each other.
+     *
+     * @return false if there is no translator for this packet, so the default handling still applies
+     */
     private boolean translateAndDefault(BedrockPacket packet) {
-        return PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session);
+        if (!PacketTranslatorRegistry.BEDROCK_TRANSLATOR.hasTranslator(packet.getClass())) {
+            return false;
+        }
+        session.getEventLoop().execute(() -> PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session));
+        return true;
     }
 
     @Override
     public boolean handle(PlayerSkinPacket packet) {
+        session.getEventLoop().execute(() -> handleSkin(packet));
+        return true;
+    }
+
+    private void handleSkin(PlayerSkinPacket packet) {
         session.getConnector().getLogger().debug("Player skin received: " + packet);
 
         // client initiated skin changes are not allowed for online auth
@@ -83,48 +98,55 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
             packet.setUuid(session.getPlayerEntity().getUuid());
             session.broadcastUpstreamPacket(packet);
         }
-
-        return true;
     }
 
     @Override
     public boolean handle(LoginPacket loginPacket) {
+        session.getEventLoop().execute(() -> handleLogin(loginPacket));
+        return true;
+    }
+
+    private void handleLogin(LoginPacket loginPacket) {
         BedrockPacketCodec packetCodec = BedrockProtocol.getBedrockCodec(loginPacket.getProtocolVersion());
         if (packetCodec == null) {
             if (loginPacket.getProtocolVersion() > BedrockProtocol.DEFAULT_BEDROCK_CODEC.getProtocolVersion()) {
                 // Too early to determine session locale
                 session.getConnector().getLogger().info(LanguageUtils.getLocaleStringLog("geyser.network.outdated.server", BedrockProtocol.DEFAULT_BEDROCK_CODEC.getMinecraftVersion()));
                 session.disconnect(LanguageUtils.getLocaleStringLog("geyser.network.outdated.server", BedrockProtocol.DEFAULT_BEDROCK_CODEC.getMinecraftVersion()));
-                return true;
+                return;
             } else if (loginPacket.getProtocolVersion() < BedrockProtocol.DEFAULT_BEDROCK_CODEC.getProtocolVersion()) {
                 session.getConnector().getLogger().info(LanguageUtils.getLocaleStringLog("geyser.network.outdated.client", BedrockProtocol.DEFAULT_BEDROCK_CODEC.getMinecraftVersion()));
                 session.disconnect(LanguageUtils.getLocaleStringLog("geyser.network.outdated.client", BedrockProtocol.DEFAULT_BEDROCK_CODEC.getMinecraftVersion()));
-                return true;
+                return;
             }
         }
 
         session.getUpstream().getSession().setPacketCodec(packetCodec);
 
-        LoginEncryptionUtils.encryptPlayerConnection(connector, session, loginPacket);
-
-        PlayStatusPacket playStatus = new PlayStatusPacket();
-        playStatus.setStatus(PlayStatusPacket.Status.LOGIN_SUCCESS);
-        session.sendUpstreamPacket(playStatus);
-
-        ResourcePacksInfoPacket resourcePacksInfo = new ResourcePacksInfoPacket();
-        for(ResourcePack resourcePack : ResourcePack.PACKS.values()) {
-            ResourcePackManifest.Header header = resourcePack.getManifest().getHeader();
-            resourcePacksInfo.getResourcePackInfos().add(new ResourcePacksInfoPacket.Entry(
-                    header.getUuid().toString(), header.getVersionString(), resourcePack.getFile().length(),
-                            "", "", "", false, false));
-        }
-        resourcePacksInfo.setForcedToAccept(GeyserConnector.getInstance().getConfig().isForceResourcePacks());
-        session.sendUpstreamPacket(resourcePacksInfo);
-        return true;
+        LoginEncryptionUtils.encryptPlayerConnection(connector, session, loginPacket, () -> {
+            PlayStatusPacket playStatus = new PlayStatusPacket();
+            playStatus.setStatus(PlayStatusPacket.Status.LOGIN_SUCCESS);
+            session.sendUpstreamPacket(playStatus);
+
+            ResourcePacksInfoPacket resourcePacksInfo = new ResourcePacksInfoPacket();
+            for(ResourcePack resourcePack : ResourcePack.PACKS.values()) {
+                ResourcePackManifest.Header header = resourcePack.getManifest().getHeader();
+                resourcePacksInfo.getResourcePackInfos().add(new ResourcePacksInfoPacket.Entry(
+                        header.getUuid().toString(), header.getVersionString(), resourcePack.getFile().length(),
+                                "", "", "", false, false));
+            }
+            resourcePacksInfo.setForcedToAccept(GeyserConnector.getInstance().getConfig().isForceResourcePacks());
+            session.sendUpstreamPacket(resourcePacksInfo);
+        });
     }
 
     @Override
     public boolean handle(ResourcePackClientResponsePacket packet) {
+        session.getEventLoop().execute(() -> handleResourcePackResponse(packet));
+        return true;
+    }
+
+    private void handleResourcePackResponse(ResourcePackClientResponsePacket packet) {
         switch (packet.getStatus()) {
             case COMPLETED:
                 session.connect(connector.getRemoteServer());
@@ -170,12 +192,15 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
                 session.disconnect("disconnectionScreen.resourcePack");
                 break;
         }
-
-        return true;
     }
 
     @Override
     public boolean handle(ModalFormResponsePacket packet) {
+        session.getEventLoop().execute(() -> handleForm(packet));
+        return true;
+    }
+
+    private boolean handleForm(ModalFormResponsePacket packet) {
         switch (packet.getFormId()) {
             case AdvancementsCache.ADVANCEMENT_INFO_FORM_ID:
                 return session.getAdvancementsCache().handleInfoForm(packet.getFormData());
@@ -214,6 +239,11 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
 
     @Override
     public boolean handle(SetLocalPlayerAsInitializedPacket packet) {
+        session.getEventLoop().execute(() -> handleLocalPlayerInitialized(packet));
+        return true;
+    }
+
+    private void handleLocalPlayerInitialized(SetLocalPlayerAsInitializedPacket packet) {
         LanguageUtils.loadGeyserLocale(session.getLocale());
 
         if (!session.isLoggedIn() && !session.isLoggingIn() && session.getConnector().getAuthType() == AuthType.ONLINE) {
@@ -223,11 +253,16 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
             }
             // else we were able to log the user in
         }
-        return translateAndDefault(packet);
+        PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session);
     }
 
     @Override
     public boolean handle(MovePlayerPacket packet) {
+        session.getEventLoop().execute(() -> handleMovePlayer(packet));
+        return true;
+    }
+
+    private void handleMovePlayer(MovePlayerPacket packet) {
         if (session.isLoggingIn()) {
             SetTitlePacket titlePacket = new SetTitlePacket();
             titlePacket.setType(SetTitlePacket.Type.ACTIONBAR);
@@ -238,7 +273,7 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
             session.sendUpstreamPacket(titlePacket);
         }
 
-        return translateAndDefault(packet);
+        PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session);
     }
 
     @Override
@@ -248,6 +283,11 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
 
     @Override
     public boolean handle(ResourcePackChunkRequestPacket packet) {
+        session.getEventLoop().execute(() -> handleResourcePackChunkRequest(packet));
+        return true;
+    }
+
+    private void handleResourcePackChunkRequest(ResourcePackChunkRequestPacket packet) {
         ResourcePackChunkDataPacket data = new ResourcePackChunkDataPacket();
         ResourcePack pack = ResourcePack.PACKS.get(packet.getPackId().toString());
 
@@ -269,6 +309,5 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
         data.setData(packData);
 
         session.sendUpstreamPacket(data);
-        return true;
     }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import com.nukkitx.protocol.bedrock.packet.SetTitlePacket;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.geysermc.connector.GeyserConnector;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs the blocking requests of logging in to Mojang or Microsoft on a fixed amount of threads.
+ * <p>
+ * Logins are handled first come, first served. Players that have to wait are shown their position in the queue, so
+ * a lot of players joining at the same time (for example, after a restart) slows logins down instead of starting a
+ * thread for each of them. Once {@link #MAX_QUEUED_LOGINS} players are waiting, further logins are turned away.
+ * <p>
+ * Follow-up requests, such as polling whether a Microsoft code has been entered yet, run on their own smaller pool,
+ * so players sitting on the code screen can't keep the workers from handling new logins.
+ */
+public class AuthenticationQueue {
+    private static final int MAX_QUEUED_LOGINS = 1000;
+    // Not translated yet, as the languages repository has no strings for the queue
+    public static final String QUEUE_FULL_MESSAGE = "Too many players are logging in right now. Please try again in a moment.";
+
+    private final GeyserConnector connector;
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>(MAX_QUEUED_LOGINS);
+    private final ExecutorService workers;
+    private final ScheduledExecutorService pollers;
+    private final ScheduledFuture<?> positionUpdater;
+
+    public AuthenticationQueue(GeyserConnector connector, int threads) {
+        this.connector = connector;
+        threads = Math.max(1, threads);
+
+        this.workers = Executors.newFixedThreadPool(threads, new DefaultThreadFactory("Geyser Authentication", true));
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::work);
+        }
+        this.pollers = Executors.newScheduledThreadPool(Math.max(1, threads / 2), new DefaultThreadFactory("Geyser Authentication Poller", true));
+        this.positionUpdater = connector.getGeneralThreadPool().scheduleAtFixedRate(this::sendPositions, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a login of this session. Players are told their position in the queue while they wait.
+     *
+     * @return false if the queue is full and the login was not queued
+     */
+    public boolean submit(GeyserSession session, Runnable task) {
+        return queue.offer(new Job(session, task));
+    }
+
+    /**
+     * Run a follow-up request of a login that is already in progress, such as polling whether a Microsoft code
+     * has been entered yet. These don't go through the queue, as the player has already been through it once.
+     */
+    public void schedule(GeyserSession session, Runnable task, long delay, TimeUnit unit) {
+        pollers.schedule(() -> {
+            if (session.isClosed()) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                connector.getLogger().error("Error while authenticating " + session.getName(), t);
+            }
+        }, delay, unit);
+    }
+
+    public void shutdown() {
+        positionUpdater.cancel(false);
+        workers.shutdownNow();
+        pollers.shutdownNow();
+        queue.clear();
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (job.session.isClosed()) {
+                continue;
+            }
+            try {
+                job.task.run();
+            } catch (Throwable t) {
+                connector.getLogger().error("Error while authenticating " + job.session.getName(), t);
+            }
+        }
+    }
+
+    /**
+     * Tells every waiting player about their position in the queue.
+     */
+    private void sendPositions() {
+        int position = 0;
+        for (Job job : queue) {
+            if (job.session.isClosed()) {
+                continue;
+            }
+            position++;
+            if (job.lastPosition == position) {
+                continue;
+            }
+            job.lastPosition = position;
+
+            SetTitlePacket titlePacket = new SetTitlePacket();
+            titlePacket.setType(SetTitlePacket.Type.ACTIONBAR);
+            titlePacket.setText("Logging in... you are #" + position + " in the queue");
+            titlePacket.setFadeInTime(0);
+            titlePacket.setFadeOutTime(1);
+            titlePacket.setStayTime(30);
+            // This runs on the general thread pool; session output goes through its event loop
+            GeyserSession session = job.session;
+            session.getEventLoop().execute(() -> {
+                if (!session.isClosed()) {
+                    session.sendUpstreamPacket(titlePacket);
+                }
+            });
+        }
+    }
+
+    private static final class Job {
+        private final GeyserSession session;
+        private final Runnable task;
+        private int lastPosition;
+
+        private Job(GeyserSession session, Runnable task) {
+            this.session = session;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.packetlib.BuiltinFlags;
+import com.github.steveice10.packetlib.Client;
+import com.github.steveice10.packetlib.packet.PacketProtocol;
+import com.github.steveice10.packetlib.tcp.TcpClientSession;
+import com.github.steveice10.packetlib.tcp.TcpPacketCodec;
+import com.github.steveice10.packetlib.tcp.TcpPacketEncryptor;
+import com.github.steveice10.packetlib.tcp.TcpPacketSizer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.haproxy.*;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection to the Java server that runs on an event loop group shared by all sessions, instead of PacketLib's
+ * default of one event loop group per connection. Native epoll is used when it is available.
+ */
+public class DownstreamClientSession extends TcpClientSession {
+    private static EventLoopGroup eventLoopGroup;
+    private static Class<? extends Channel> channelClass;
+
+    private final Client client;
+    private final EventLoop eventLoop;
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private Channel downstreamChannel;
+
+    public DownstreamClientSession(String host, int port, PacketProtocol protocol, Client client, EventLoop eventLoop) {
+        super(host, port, protocol, client, null);
+        this.client = client;
+        this.eventLoop = eventLoop;
+    }
+
+    @Override
+    public void connect(boolean wait) {
+        if (!connecting.compareAndSet(false, true)) {
+            return;
+        }
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(eventLoop)
+                .channel(getChannelClass())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, getConnectTimeout() * 1000)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    public void initChannel(Channel channel) {
+                        getPacketProtocol().newClientSession(client, DownstreamClientSession.this);
+
+                        channel.config().setOption(ChannelOption.IP_TOS, 0x18);
+                        channel.config().setOption(ChannelOption.TCP_NODELAY, false);
+
+                        downstreamChannel = channel;
+                        ChannelPipeline pipeline = channel.pipeline();
+
+                        refreshReadTimeoutHandler(channel);
+                        refreshWriteTimeoutHandler(channel);
+
+                        pipeline.addLast("encryption", new TcpPacketEncryptor(DownstreamClientSession.this));
+                        pipeline.addLast("sizer", new TcpPacketSizer(DownstreamClientSession.this));
+                        pipeline.addLast("filter", new IgnoredPacketFilter((MinecraftProtocol) getPacketProtocol()));
+                        pipeline.addLast("codec", new TcpPacketCodec(DownstreamClientSession.this));
+                        pipeline.addLast("manager", DownstreamClientSession.this);
+
+                        addHAProxySupport(pipeline);
+                    }
+                });
+
+        ChannelFuture future = bootstrap.connect(getHost(), getPort()).addListener((ChannelFutureListener) connectFuture -> {
+            if (!connectFuture.isSuccess()) {
+                disconnect("Connection failed: " + connectFuture.cause().getMessage(), connectFuture.cause());
+            }
+        });
+        if (wait) {
+            future.awaitUninterruptibly();
+        }
+    }
+
+    @Override
+    public void setCompressionThreshold(int threshold) {
+        super.setCompressionThreshold(threshold);
+
+        // Compression is added right in front of the codec, but the filter needs to see decompressed packets
+        if (downstreamChannel != null && downstreamChannel.pipeline().get("filter") != null) {
+            ChannelHandler filter = downstreamChannel.pipeline().remove("filter");
+            downstreamChannel.pipeline().addBefore("codec", "filter", filter);
+        }
+    }
+
+    private void addHAProxySupport(ChannelPipeline pipeline) {
+        Boolean enabled = getFlag(BuiltinFlags.ENABLE_CLIENT_PROXY_PROTOCOL);
+        InetSocketAddress clientAddress = getFlag(BuiltinFlags.CLIENT_PROXIED_ADDRESS);
+        if (enabled == null || !enabled || clientAddress == null) {
+            return;
+        }
+
+        pipeline.addFirst("proxy-protocol-packet-sender", new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                HAProxyProxiedProtocol proxiedProtocol = clientAddress.getAddress() instanceof Inet4Address ? HAProxyProxiedProtocol.TCP4 : HAProxyProxiedProtocol.TCP6;
+                InetSocketAddress remoteAddress = (InetSocketAddress) ctx.channel().remoteAddress();
+                ctx.channel().writeAndFlush(new HAProxyMessage(
+                        HAProxyProtocolVersion.V2, HAProxyCommand.PROXY, proxiedProtocol,
+                        clientAddress.getAddress().getHostAddress(), remoteAddress.getAddress().getHostAddress(),
+                        clientAddress.getPort(), remoteAddress.getPort()
+                ));
+                ctx.pipeline().remove(this);
+                ctx.pipeline().remove("proxy-protocol-encoder");
+                super.channelActive(ctx);
+            }
+        });
+        pipeline.addFirst("proxy-protocol-encoder", HAProxyMessageEncoder.INSTANCE);
+    }
+
+    /**
+     * Picks the event loop a new session is pinned to. The session's Java connection, its Bedrock translation, its
+     * tick and its timers all run on this loop, so session state is only ever touched by one thread.
+     *
+     * @return the next event loop of the shared group
+     */
+    public static EventLoop nextEventLoop() {
+        return getEventLoopGroup().next();
+    }
+
+    private static synchronized Class<? extends Channel> getChannelClass() {
+        getEventLoopGroup();
+        return channelClass;
+    }
+
+    /**
+     * @return the event loop group shared by all downstream connections, creating it if needed
+     */
+    private static synchronized EventLoopGroup getEventLoopGroup() {
+        if (eventLoopGroup == null) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            DefaultThreadFactory threadFactory = new DefaultThreadFactory("Geyser Downstream", true);
+            if (Epoll.isAvailable()) {
+                eventLoopGroup = new EpollEventLoopGroup(threads, threadFactory);
+                channelClass = EpollSocketChannel.class;
+            } else {
+                eventLoopGroup = new NioEventLoopGroup(threads, threadFactory);
+                channelClass = NioSocketChannel.class;
+            }
+        }
+        return eventLoopGroup;
+    }
+
+    /**
+     * Shuts down the shared event loop group. Should only be called once every session is closed.
+     */
+    public static synchronized void shutdownEventLoopGroup() {
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+            eventLoopGroup = null;
+        }
+    }
+}
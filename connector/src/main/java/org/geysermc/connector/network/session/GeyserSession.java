@@ -47,7 +47,6 @@ import com.github.steveice10.packetlib.BuiltinFlags;
 import com.github.steveice10.packetlib.Client;
 import com.github.steveice10.packetlib.event.session.*;
 import com.github.steveice10.packetlib.packet.Packet;
-import com.github.steveice10.packetlib.tcp.TcpSessionFactory;
 import com.nukkitx.math.GenericMath;
 import com.nukkitx.math.vector.*;
 import com.nukkitx.protocol.bedrock.BedrockPacket;
@@ -63,6 +62,7 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2LongMap;
 import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import io.netty.channel.EventLoop;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -73,6 +73,8 @@ import org.geysermc.connector.entity.Tickable;
 import org.geysermc.connector.command.CommandSender;
 import org.geysermc.connector.common.AuthType;
 import org.geysermc.connector.entity.Entity;
+import org.geysermc.connector.entity.EntityInterestManager;
+import org.geysermc.connector.entity.EntityMovementBuffer;
 import org.geysermc.connector.entity.player.SessionPlayerEntity;
 import org.geysermc.connector.entity.player.SkullPlayerEntity;
 import org.geysermc.connector.inventory.PlayerInventory;
@@ -80,26 +82,22 @@ import org.geysermc.connector.network.remote.RemoteServer;
 import org.geysermc.connector.network.session.auth.AuthData;
 import org.geysermc.connector.network.session.auth.BedrockClientData;
 import org.geysermc.connector.network.session.cache.*;
-import org.geysermc.connector.network.translators.BiomeTranslator;
-import org.geysermc.connector.network.translators.EntityIdentifierRegistry;
 import org.geysermc.connector.network.translators.PacketTranslatorRegistry;
 import org.geysermc.connector.network.translators.chat.MessageTranslator;
 import org.geysermc.connector.network.translators.collision.CollisionManager;
 import org.geysermc.connector.network.translators.inventory.EnchantmentInventoryTranslator;
 import org.geysermc.connector.network.translators.item.ItemRegistry;
 import org.geysermc.connector.network.translators.playerlist.PlayerListManager;
+import org.geysermc.connector.network.translators.world.BlockUpdateBuffer;
+import org.geysermc.connector.network.translators.world.ChunkSendScheduler;
 import org.geysermc.connector.utils.*;
 import org.geysermc.floodgate.util.BedrockData;
 import org.geysermc.floodgate.util.EncryptionUtil;
 
-import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
-import java.security.spec.InvalidKeySpecException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 @Getter
@@ -107,6 +105,11 @@ public class GeyserSession implements CommandSender {
 
     private final GeyserConnector connector;
     private final UpstreamSession upstream;
+    /**
+     * The event loop this session is pinned to. All Java and Bedrock packet translation, the tick and any timers of
+     * this session run here, so session state must only be modified from this thread.
+     */
+    private final EventLoop eventLoop;
     private RemoteServer remoteServer;
     private Client downstream;
     @Setter
@@ -124,6 +127,7 @@ public class GeyserSession implements CommandSender {
     private AdvancementsCache advancementsCache;
     private BookEditCache bookEditCache;
     private ChunkCache chunkCache;
+    private ClientBlobCache clientBlobCache;
     private EntityCache entityCache;
     private EntityEffectCache effectCache;
     private InventoryCache inventoryCache;
@@ -141,6 +145,24 @@ public class GeyserSession implements CommandSender {
      */
     private final PlayerListManager playerListManager;
 
+    /**
+     * Queues translated chunks and sends them closest-first
+     */
+    private final ChunkSendScheduler chunkSendScheduler;
+
+    /**
+     * Collects block updates and sends them at the end of the tick
+     */
+    private final BlockUpdateBuffer blockUpdateBuffer;
+    /**
+     * Collects entity movement and sends it at the end of the tick
+     */
+    private final EntityMovementBuffer entityMovementBuffer;
+    /**
+     * Decides how often entity updates are sent, based on the entity's distance from the player
+     */
+    private final EntityInterestManager entityInterestManager;
+
     private final Map<Vector3i, SkullPlayerEntity> skullCache = new ConcurrentHashMap<>();
     private final Long2ObjectMap<ClientboundMapItemDataPacket> storedMaps = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
 
@@ -260,7 +282,7 @@ public class GeyserSession implements CommandSender {
      * interact with a block.
      */
     @Setter
-    private ScheduledFuture<?> bucketScheduledFuture;
+    private TickDriver.Task bucketScheduledFuture;
 
     /**
      * Used to send a movement packet every three seconds if the player hasn't moved. Prevents timeouts when AFK in certain instances.
@@ -345,20 +367,17 @@ public class GeyserSession implements CommandSender {
     private List<UUID> selectedEmotes = new ArrayList<>();
     private final Set<UUID> emotes = new HashSet<>();
 
-    /**
-     * The thread that will run every 50 milliseconds - one Minecraft tick.
-     */
-    private ScheduledFuture<?> tickThread = null;
-
     private MinecraftProtocol protocol;
 
     public GeyserSession(GeyserConnector connector, BedrockServerSession bedrockServerSession) {
         this.connector = connector;
         this.upstream = new UpstreamSession(bedrockServerSession);
+        this.eventLoop = DownstreamClientSession.nextEventLoop();
 
         this.advancementsCache = new AdvancementsCache(this);
         this.bookEditCache = new BookEditCache(this);
         this.chunkCache = new ChunkCache(this);
+        this.clientBlobCache = new ClientBlobCache();
         this.entityCache = new EntityCache(this);
         this.effectCache = new EntityEffectCache();
         this.inventoryCache = new InventoryCache(this);
@@ -367,6 +386,10 @@ public class GeyserSession implements CommandSender {
 
         this.collisionManager = new CollisionManager(this);
         this.playerListManager = new PlayerListManager(this);
+        this.chunkSendScheduler = new ChunkSendScheduler(this);
+        this.blockUpdateBuffer = new BlockUpdateBuffer(this);
+        this.entityMovementBuffer = new EntityMovementBuffer(this);
+        this.entityInterestManager = new EntityInterestManager(this);
 
         this.playerEntity = new SessionPlayerEntity(this);
         this.inventory = new PlayerInventory();
@@ -383,8 +406,10 @@ public class GeyserSession implements CommandSender {
         bedrockServerSession.addDisconnectHandler(disconnectReason -> {
             connector.getLogger().info(LanguageUtils.getLocaleStringLog("geyser.network.disconnect", bedrockServerSession.getAddress().getAddress(), disconnectReason));
 
-            disconnect(disconnectReason.name());
-            connector.removePlayer(this);
+            eventLoop.execute(() -> {
+                disconnect(disconnectReason.name());
+                connector.removePlayer(this);
+            });
         });
     }
 
@@ -397,17 +422,10 @@ public class GeyserSession implements CommandSender {
 
         ChunkUtils.sendEmptyChunks(this, playerEntity.getPosition().toInt(), 0, false);
 
-        BiomeDefinitionListPacket biomeDefinitionListPacket = new BiomeDefinitionListPacket();
-        biomeDefinitionListPacket.setDefinitions(BiomeTranslator.BIOMES);
-        upstream.sendPacket(biomeDefinitionListPacket);
-
-        AvailableEntityIdentifiersPacket entityPacket = new AvailableEntityIdentifiersPacket();
-        entityPacket.setIdentifiers(EntityIdentifierRegistry.ENTITY_IDENTIFIERS);
-        upstream.sendPacket(entityPacket);
-
-        CreativeContentPacket creativePacket = new CreativeContentPacket();
-        creativePacket.setContents(ItemRegistry.CREATIVE_ITEMS);
-        upstream.sendPacket(creativePacket);
+        // These are identical for every player, so they are only encoded once
+        upstream.sendPacket(LoginPacketCache.BIOME_DEFINITIONS.get(this));
+        upstream.sendPacket(LoginPacketCache.ENTITY_IDENTIFIERS.get(this));
+        upstream.sendPacket(LoginPacketCache.CREATIVE_CONTENT.get(this));
 
         PlayStatusPacket playStatusPacket = new PlayStatusPacket();
         playStatusPacket.setStatus(PlayStatusPacket.Status.PLAYER_SPAWN);
@@ -472,33 +490,43 @@ public class GeyserSession implements CommandSender {
         }
 
         loggingIn = true;
-        // new thread so clients don't timeout
-        new Thread(() -> {
-            try {
-                if (password != null && !password.isEmpty()) {
-                    AuthenticationService authenticationService;
-                    if (microsoftAccount) {
-                        authenticationService = new MsaAuthenticationService(GeyserConnector.OAUTH_CLIENT_ID);
-                    } else {
-                        authenticationService = new MojangAuthenticationService();
-                    }
-                    authenticationService.setUsername(username);
-                    authenticationService.setPassword(password);
-                    authenticationService.login();
+        if (password == null || password.isEmpty()) {
+            // Nothing to request, so there's no need to wait in the queue
+            eventLoop.execute(() -> loginWithCredentials(username, password));
+        } else {
+            // Don't block the session while the request is made
+            if (!connector.getAuthenticationQueue().submit(this, () -> loginWithCredentials(username, password))) {
+                disconnect(AuthenticationQueue.QUEUE_FULL_MESSAGE);
+            }
+        }
+    }
 
-                    protocol = new MinecraftProtocol(authenticationService);
+    private void loginWithCredentials(String username, String password) {
+        try {
+            if (password != null && !password.isEmpty()) {
+                AuthenticationService authenticationService;
+                if (microsoftAccount) {
+                    authenticationService = new MsaAuthenticationService(GeyserConnector.OAUTH_CLIENT_ID);
                 } else {
-                    protocol = new MinecraftProtocol(username);
+                    authenticationService = new MojangAuthenticationService();
                 }
+                authenticationService.setUsername(username);
+                authenticationService.setPassword(password);
+                authenticationService.login();
 
-                connectDownstream();
-            } catch (InvalidCredentialsException | IllegalArgumentException e) {
-                connector.getLogger().info(LanguageUtils.getLocaleStringLog("geyser.auth.login.invalid", username));
-                disconnect(LanguageUtils.getPlayerLocaleString("geyser.auth.login.invalid.kick", getClientData().getLanguageCode()));
-            } catch (RequestException ex) {
-                ex.printStackTrace();
+                protocol = new MinecraftProtocol(authenticationService);
+            } else {
+                protocol = new MinecraftProtocol(username);
             }
-        }).start();
+
+            eventLoop.execute(this::connectDownstream);
+        } catch (InvalidCredentialsException | IllegalArgumentException e) {
+            connector.getLogger().info(LanguageUtils.getLocaleStringLog("geyser.auth.login.invalid", username));
+            // This may run on an authentication thread, but the session may only be closed on its event loop
+            eventLoop.execute(() -> disconnect(LanguageUtils.getPlayerLocaleString("geyser.auth.login.invalid.kick", getClientData().getLanguageCode())));
+        } catch (RequestException ex) {
+            ex.printStackTrace();
+        }
     }
 
     /**
@@ -511,28 +539,34 @@ public class GeyserSession implements CommandSender {
         }
 
         loggingIn = true;
-        // new thread so clients don't timeout
-        new Thread(() -> {
+        // Don't block the session while the requests are made
+        boolean queued = connector.getAuthenticationQueue().submit(this, () -> {
             try {
                 MsaAuthenticationService msaAuthenticationService = new MsaAuthenticationService(GeyserConnector.OAUTH_CLIENT_ID);
 
                 MsaAuthenticationService.MsCodeResponse response = msaAuthenticationService.getAuthCode();
-                LoginEncryptionUtils.showMicrosoftCodeWindow(this, response);
+                // The window cache may only be used on the session's event loop
+                eventLoop.execute(() -> {
+                    LoginEncryptionUtils.showMicrosoftCodeWindow(this, response);
 
-                // This just looks cool
-                SetTimePacket packet = new SetTimePacket();
-                packet.setTime(16000);
-                sendUpstreamPacket(packet);
+                    // This just looks cool
+                    SetTimePacket packet = new SetTimePacket();
+                    packet.setTime(16000);
+                    sendUpstreamPacket(packet);
+                });
 
                 // Wait for the code to validate
                 attemptCodeAuthentication(msaAuthenticationService);
             } catch (InvalidCredentialsException | IllegalArgumentException e) {
                 connector.getLogger().info(LanguageUtils.getLocaleStringLog("geyser.auth.login.invalid", getAuthData().getName()));
-                disconnect(LanguageUtils.getPlayerLocaleString("geyser.auth.login.invalid.kick", getClientData().getLanguageCode()));
+                eventLoop.execute(() -> disconnect(LanguageUtils.getPlayerLocaleString("geyser.auth.login.invalid.kick", getClientData().getLanguageCode())));
             } catch (RequestException ex) {
                 ex.printStackTrace();
             }
-        }).start();
+        });
+        if (!queued) {
+            disconnect(AuthenticationQueue.QUEUE_FULL_MESSAGE);
+        }
     }
 
     /**
@@ -546,13 +580,13 @@ public class GeyserSession implements CommandSender {
             msaAuthenticationService.login();
             protocol = new MinecraftProtocol(msaAuthenticationService);
 
-            connectDownstream();
+            eventLoop.execute(this::connectDownstream);
         } catch (RequestException e) {
             if (!(e instanceof AuthPendingException)) {
                 e.printStackTrace();
             } else {
-                // Wait one second before trying again
-                connector.getGeneralThreadPool().schedule(() -> attemptCodeAuthentication(msaAuthenticationService), 1, TimeUnit.SECONDS);
+                // Wait one second before trying again, outside of the login queue
+                connector.getAuthenticationQueue().schedule(this, () -> attemptCodeAuthentication(msaAuthenticationService), 1, TimeUnit.SECONDS);
             }
         }
     }
@@ -562,29 +596,12 @@ public class GeyserSession implements CommandSender {
      */
     private void connectDownstream() {
         boolean floodgate = connector.getAuthType() == AuthType.FLOODGATE;
-        final PublicKey publicKey;
-
-        if (floodgate) {
-            PublicKey key = null;
-            try {
-                key = EncryptionUtil.getKeyFromFile(
-                        connector.getConfig().getFloodgateKeyPath(),
-                        PublicKey.class
-                );
-            } catch (IOException | InvalidKeySpecException | NoSuchAlgorithmException e) {
-                connector.getLogger().error(LanguageUtils.getLocaleStringLog("geyser.auth.floodgate.bad_key"), e);
-            }
-            publicKey = key;
-        } else publicKey = null;
-
-        if (publicKey != null) {
-            connector.getLogger().info(LanguageUtils.getLocaleStringLog("geyser.auth.floodgate.loaded_key"));
-        }
+        final PublicKey publicKey = floodgate ? connector.getFloodgateKey() : null;
 
         // Start ticking
-        tickThread = connector.getGeneralThreadPool().scheduleAtFixedRate(this::tick, 50, 50, TimeUnit.MILLISECONDS);
+        connector.getTickDriver().register(this);
 
-        downstream = new Client(remoteServer.getAddress(), remoteServer.getPort(), protocol, new TcpSessionFactory());
+        downstream = new Client(remoteServer.getAddress(), remoteServer.getPort(), protocol, new DownstreamSessionFactory(eventLoop));
         if (connector.getConfig().getRemote().isUseProxyProtocol()) {
             downstream.getSession().setFlag(BuiltinFlags.ENABLE_CLIENT_PROXY_PROTOCOL, true);
             downstream.getSession().setFlag(BuiltinFlags.CLIENT_PROXIED_ADDRESS, upstream.getAddress());
@@ -706,13 +723,18 @@ public class GeyserSession implements CommandSender {
             }
         }
 
-        if (tickThread != null) {
-            tickThread.cancel(true);
-        }
+        connector.getTickDriver().unregister(this);
 
         this.advancementsCache = null;
         this.bookEditCache = null;
+        if (this.chunkCache != null) {
+            this.chunkCache.clear();
+        }
         this.chunkCache = null;
+        if (this.clientBlobCache != null) {
+            this.clientBlobCache.clear();
+        }
+        this.clientBlobCache = null;
         this.entityCache = null;
         this.effectCache = null;
         this.worldCache = null;
@@ -743,9 +765,25 @@ public class GeyserSession implements CommandSender {
             lastMovementTimestamp = System.currentTimeMillis();
         }
 
+        chunkSendScheduler.tick();
+        blockUpdateBuffer.tick();
+        worldCache.getScoreboardUpdater().tick();
+
         for (Tickable entity : entityCache.getTickableEntities()) {
             entity.tick(this);
         }
+        // After ticking entities, as some of them move themselves every tick
+        entityInterestManager.tick();
+        entityMovementBuffer.tick();
+    }
+
+    /**
+     * Run a task on this session's event loop after the given delay.
+     *
+     * @see TickDriver#schedule(GeyserSession, Runnable, long, TimeUnit)
+     */
+    public TickDriver.Task schedule(Runnable runnable, long delay, TimeUnit unit) {
+        return connector.getTickDriver().schedule(this, runnable, delay, unit);
     }
 
     public void setAuthenticationData(AuthData authData) {
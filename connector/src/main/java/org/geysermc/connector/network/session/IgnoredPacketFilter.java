@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.mc.protocol.data.SubProtocol;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.geysermc.connector.network.translators.PacketTranslatorRegistry;
+
+/**
+ * Drops packets that Geyser ignores before they are decoded, based on the packet ID at the start of the frame.
+ * Must sit directly in front of the packet codec, after decompression.
+ */
+public class IgnoredPacketFilter extends ChannelInboundHandlerAdapter {
+    private final MinecraftProtocol protocol;
+
+    /**
+     * The IDs of ignored packets in the game state, looked up once the game state is reached
+     */
+    private IntSet ignoredPacketIds;
+
+    public IgnoredPacketFilter(MinecraftProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf && protocol.getSubProtocol() == SubProtocol.GAME) {
+            if (ignoredPacketIds == null) {
+                ignoredPacketIds = findIgnoredPacketIds();
+            }
+
+            int packetId = peekVarInt((ByteBuf) msg);
+            if (packetId != -1 && ignoredPacketIds.contains(packetId)) {
+                ((ByteBuf) msg).release();
+                return;
+            }
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    private IntSet findIgnoredPacketIds() {
+        IntSet packetIds = new IntOpenHashSet();
+        for (int packetId = 0; packetId < 0x80; packetId++) {
+            Packet packet;
+            try {
+                packet = protocol.createIncomingPacket(packetId);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // No packet with this ID
+                continue;
+            }
+            if (PacketTranslatorRegistry.isIgnoredPacket(packet.getClass())) {
+                packetIds.add(packetId);
+            }
+        }
+        return packetIds;
+    }
+
+    /**
+     * Reads the VarInt at the start of the buffer without moving its reader index
+     *
+     * @return the VarInt, or -1 if the buffer doesn't start with a valid one
+     */
+    private static int peekVarInt(ByteBuf buf) {
+        int value = 0;
+        int index = buf.readerIndex();
+        for (int i = 0; i < 5 && index < buf.writerIndex(); i++) {
+            byte b = buf.getByte(index++);
+            value |= (b & 0x7F) << (i * 7);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+}
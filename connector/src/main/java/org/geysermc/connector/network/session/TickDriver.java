@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.geysermc.connector.GeyserConnector;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drives every session timer from a single thread, instead of every session scheduling its own.
+ * <p>
+ * Sessions are ticked by one 20 TPS pulse, which hands each event loop a single batch containing all of its sessions.
+ * One-off delays are kept in a hashed timer wheel, so scheduling and cancelling are constant time, and run on the
+ * event loop of the session they belong to once they expire.
+ */
+public class TickDriver {
+    public static final long TICK_MILLIS = 50;
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("Geyser Tick Driver", true),
+            10, TimeUnit.MILLISECONDS, 256);
+    private final Map<EventLoop, SessionBatch> batches = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+    private long nextPulse;
+
+    public TickDriver() {
+        nextPulse = System.nanoTime();
+        schedulePulse();
+    }
+
+    /**
+     * Start ticking this session every 50 milliseconds.
+     */
+    public void register(GeyserSession session) {
+        batches.computeIfAbsent(session.getEventLoop(), SessionBatch::new).sessions.add(session);
+    }
+
+    public void unregister(GeyserSession session) {
+        SessionBatch batch = batches.get(session.getEventLoop());
+        if (batch != null) {
+            batch.sessions.remove(session);
+        }
+    }
+
+    /**
+     * Run a task on the session's event loop after the given delay. The task is dropped if the session has closed by then.
+     *
+     * @return a handle that can be used to cancel the task, as long as it hasn't run yet
+     */
+    public Task schedule(GeyserSession session, Runnable runnable, long delay, TimeUnit unit) {
+        Task task = new Task(session, runnable);
+        task.timeout = timer.newTimeout(task, delay, unit);
+        return task;
+    }
+
+    public void shutdown() {
+        running = false;
+        timer.stop();
+        batches.clear();
+    }
+
+    private void schedulePulse() {
+        if (!running) {
+            return;
+        }
+        // Schedule relative to the previous pulse, so the timer's granularity doesn't add up to a slower tick rate
+        long now = System.nanoTime();
+        nextPulse += TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+        if (nextPulse < now) {
+            // Too far behind to catch up; don't burst ticks
+            nextPulse = now;
+        }
+        timer.newTimeout(timeout -> pulse(), nextPulse - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void pulse() {
+        try {
+            for (SessionBatch batch : batches.values()) {
+                batch.submit();
+            }
+        } finally {
+            schedulePulse();
+        }
+    }
+
+    /**
+     * All sessions of one event loop, ticked by a single task.
+     */
+    private static final class SessionBatch implements Runnable {
+        private final EventLoop eventLoop;
+        private final Set<GeyserSession> sessions = ConcurrentHashMap.newKeySet();
+        /**
+         * If the loop hasn't gotten to the previous tick yet, it is skipped instead of piling up more work.
+         */
+        private final AtomicBoolean queued = new AtomicBoolean();
+
+        private SessionBatch(EventLoop eventLoop) {
+            this.eventLoop = eventLoop;
+        }
+
+        private void submit() {
+            if (!sessions.isEmpty() && !eventLoop.isShuttingDown() && queued.compareAndSet(false, true)) {
+                eventLoop.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            queued.set(false);
+            for (GeyserSession session : sessions) {
+                if (session.isClosed()) {
+                    continue;
+                }
+                try {
+                    session.tick();
+                } catch (Throwable t) {
+                    GeyserConnector.getInstance().getLogger().error("Error while ticking session " + session.getName(), t);
+                }
+            }
+        }
+    }
+
+    /**
+     * A delayed task of a session.
+     */
+    public static final class Task implements TimerTask, Runnable {
+        private final GeyserSession session;
+        private final Runnable runnable;
+        private volatile boolean cancelled;
+        private Timeout timeout;
+
+        private Task(GeyserSession session, Runnable runnable) {
+            this.session = session;
+            this.runnable = runnable;
+        }
+
+        /**
+         * Cancel the task. When called on the session's event loop the task is guaranteed not to run afterwards.
+         */
+        public void cancel() {
+            cancelled = true;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (!cancelled && !session.getEventLoop().isShuttingDown()) {
+                session.getEventLoop().execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!cancelled && !session.isClosed()) {
+                runnable.run();
+            }
+        }
+    }
+}
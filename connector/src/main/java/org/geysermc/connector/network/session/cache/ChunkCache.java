@@ -27,53 +27,205 @@ package org.geysermc.connector.network.session.cache;
 
 import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
 import com.github.steveice10.mc.protocol.data.game.chunk.Column;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.GlobalPalette;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.nukkitx.math.vector.Vector3f;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import org.geysermc.connector.bootstrap.GeyserBootstrap;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.utils.MathUtils;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Stores the Java chunks sent to a session.
+ *
+ * Columns are written from the downstream thread, but blocks are looked up from the upstream thread and scheduled
+ * tasks too. To keep lookups cheap, columns are split over several stripes that each have their own lock; block
+ * lookups first try an optimistic read and only take the lock if a write happened at the same time.
+ */
 public class ChunkCache {
 
+    /**
+     * The amount of stripes columns are split over. Must be a power of two.
+     */
+    private static final int STRIPES = 16;
+
+    /**
+     * The estimated amount of bytes used by the chunk caches of all sessions
+     */
+    private static final AtomicLong TOTAL_SIZE = new AtomicLong();
+    /**
+     * The amount of sessions that currently cache chunks, so the budget of all caches combined can be shared fairly
+     */
+    private static final AtomicInteger ACTIVE_CACHES = new AtomicInteger();
+
+    /**
+     * Height maps are only used by the Java client for rendering, so there is no need to keep them around
+     */
+    private static final CompoundTag EMPTY_HEIGHT_MAPS = new CompoundTag("");
+
+    /**
+     * Biome arrays of columns that only contain one biome. These are shared between all columns, and must never be modified.
+     */
+    private static final Int2ObjectMap<int[]> UNIFORM_BIOMES = new Int2ObjectOpenHashMap<>();
+
+    private final GeyserSession session;
     private final boolean cache;
 
-    private final Long2ObjectMap<Column> chunks = new Long2ObjectOpenHashMap<>();
+    /**
+     * The maximum size of this cache and of all caches combined in bytes, or 0 for no limit
+     */
+    private final long maxSize;
+    private final long maxTotalSize;
+
+    /**
+     * Where columns go instead of being removed when over budget, or null if spilling to disk is disabled
+     */
+    private final ChunkCacheSpillFile spillFile;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Held while evicting, so only one thread evicts chunks at a time
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * If {@link #clear()} has been called; nothing is cached anymore after this, as the session is gone
+     */
+    private volatile boolean cleared = false;
 
     public ChunkCache(GeyserSession session) {
+        this.session = session;
         if (session.getConnector().getWorldManager().getClass() == GeyserBootstrap.DEFAULT_CHUNK_MANAGER.getClass()) {
             this.cache = session.getConnector().getConfig().isCacheChunks();
         } else {
             this.cache = false; // To prevent Spigot from initializing
         }
+        this.maxSize = Math.max(0, session.getConnector().getConfig().getMaxChunkCacheSizePerPlayer()) * 1024L * 1024L;
+        this.maxTotalSize = Math.max(0, session.getConnector().getConfig().getMaxChunkCacheSize()) * 1024L * 1024L;
+
+        long spillSize = Math.max(0, session.getConnector().getConfig().getChunkCacheSpillSize()) * 1024L * 1024L;
+        this.spillFile = cache && spillSize > 0 ? new ChunkCacheSpillFile(spillSize) : null;
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        if (cache) {
+            ACTIVE_CACHES.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return true if chunks are stored in this cache
+     */
+    public boolean isCaching() {
+        return cache;
     }
 
     public Column addToCache(Column chunk) {
-        if (!cache) {
+        if (!cache || cleared) {
             return chunk;
         }
 
         long chunkPosition = MathUtils.chunkPositionToLong(chunk.getX(), chunk.getZ());
-        Column existingChunk;
-        if (chunk.getBiomeData() == null // Only consider merging columns if the new chunk isn't a full chunk
-            && (existingChunk = chunks.getOrDefault(chunkPosition, null)) != null) { // Column is already present in cache, we can merge with existing
-            boolean changed = false;
-            for (int i = 0; i < chunk.getChunks().length; i++) { // The chunks member is final, so chunk.getChunks() will probably be inlined and then completely optimized away
-                if (chunk.getChunks()[i] != null) {
-                    existingChunk.getChunks()[i] = chunk.getChunks()[i];
-                    changed = true;
+        Stripe stripe = getStripe(chunkPosition);
+        Column result;
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (chunk.getBiomeData() != null) {
+                result = compactColumn(chunk);
+                CachedColumn cachedColumn = new CachedColumn(result);
+                updateSize(cachedColumn);
+
+                CachedColumn previous = stripe.chunks.put(chunkPosition, cachedColumn);
+                if (previous != null) {
+                    release(previous);
+                }
+            } else {
+                // Only merge non-full chunks into a column that is already present in cache
+                CachedColumn existingChunk = loadColumn(stripe, chunkPosition);
+                if (existingChunk == null) {
+                    // The column was evicted, which only happens once the client doesn't have it loaded anymore.
+                    // Never store or send a partial column in its place, as it would wipe the sections it doesn't contain
+                    return null;
+                }
+                existingChunk.markUsed();
+                Column existingColumn = existingChunk.column;
+                boolean changed = false;
+                for (int i = 0; i < chunk.getChunks().length; i++) { // The chunks member is final, so chunk.getChunks() will probably be inlined and then completely optimized away
+                    if (chunk.getChunks()[i] != null) {
+                        existingColumn.getChunks()[i] = compactSection(chunk.getChunks()[i]);
+                        changed = true;
+                    }
                 }
+                if (changed) {
+                    updateSize(existingChunk);
+                }
+                result = changed ? existingColumn : null;
             }
-            return changed ? existingChunk : null;
-        } else {
-            chunks.put(chunkPosition, chunk);
-            return chunk;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
         }
+
+        evictIfNeeded(chunkPosition);
+        return result;
     }
 
+    /**
+     * Gets a column from the cache. The column isn't locked once it is returned, so it may still be changed by another
+     * thread while it is read.
+     */
     public Column getChunk(int chunkX, int chunkZ)  {
         long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
-        return chunks.getOrDefault(chunkPosition, null);
+        Stripe stripe = getStripe(chunkPosition);
+
+        long stamp = stripe.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                CachedColumn cachedColumn = stripe.chunks.get(chunkPosition);
+                if (cachedColumn == null || cachedColumn.column != null) {
+                    Column column = cachedColumn == null ? null : cachedColumn.column;
+                    if (stripe.lock.validate(stamp)) {
+                        if (cachedColumn != null) {
+                            cachedColumn.markUsed();
+                        }
+                        return column;
+                    }
+                }
+            } catch (RuntimeException ignored) {
+                // The map was changed while we were reading it; try again with the lock
+            }
+        }
+
+        Column column;
+        stamp = stripe.lock.writeLock(); // Reading the column back from the spill file changes the cache
+        try {
+            CachedColumn cachedColumn = loadColumn(stripe, chunkPosition);
+            if (cachedColumn != null) {
+                cachedColumn.markUsed();
+            }
+            column = cachedColumn == null ? null : cachedColumn.column;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+
+        evictIfNeeded(chunkPosition);
+        return column;
     }
 
     public void updateBlock(int x, int y, int z, int block) {
@@ -81,14 +233,36 @@ public class ChunkCache {
             return;
         }
 
-        Column column = this.getChunk(x >> 4, z >> 4);
-        if (column == null) {
-            return;
-        }
+        long chunkPosition = MathUtils.chunkPositionToLong(x >> 4, z >> 4);
+        Stripe stripe = getStripe(chunkPosition);
+        long stamp = stripe.lock.writeLock();
+        try {
+            CachedColumn cachedColumn = loadColumn(stripe, chunkPosition);
+            if (cachedColumn == null) {
+                return;
+            }
+
+            Chunk[] sections = cachedColumn.column.getChunks();
+            if ((y >> 4) < 0 || (y >> 4) >= sections.length) {
+                return;
+            }
+
+            Chunk chunk = sections[y >> 4];
+            if (chunk == null) {
+                if (block == BlockTranslator.JAVA_AIR_ID) {
+                    return;
+                }
+                // Empty sections aren't stored, so create the section now that it has a block in it
+                chunk = new Chunk();
+                chunk.set(x & 0xF, y & 0xF, z & 0xF, block);
+                sections[y >> 4] = chunk;
+                updateSize(cachedColumn);
+                return;
+            }
 
-        Chunk chunk = column.getChunks()[y >> 4];
-        if (chunk != null) {
             chunk.set(x & 0xF, y & 0xF, z & 0xF, block);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
         }
     }
 
@@ -97,8 +271,159 @@ public class ChunkCache {
             return BlockTranslator.JAVA_AIR_ID;
         }
 
-        Column column = this.getChunk(x >> 4, z >> 4);
-        if (column == null) {
+        long chunkPosition = MathUtils.chunkPositionToLong(x >> 4, z >> 4);
+        Stripe stripe = getStripe(chunkPosition);
+
+        long stamp = stripe.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                CachedColumn cachedColumn = stripe.chunks.get(chunkPosition);
+                if (cachedColumn == null || cachedColumn.column != null) {
+                    int block = cachedColumn == null ? BlockTranslator.JAVA_AIR_ID : getBlockAt(cachedColumn.column, x, y, z);
+                    if (stripe.lock.validate(stamp)) {
+                        if (cachedColumn != null) {
+                            cachedColumn.markUsed();
+                        }
+                        return block;
+                    }
+                }
+            } catch (RuntimeException ignored) {
+                // The map or section was changed while we were reading it; try again with the lock
+            }
+        }
+
+        int block;
+        stamp = stripe.lock.writeLock(); // Reading the column back from the spill file changes the cache
+        try {
+            CachedColumn cachedColumn = loadColumn(stripe, chunkPosition);
+            if (cachedColumn != null) {
+                cachedColumn.markUsed();
+            }
+            block = cachedColumn == null ? BlockTranslator.JAVA_AIR_ID : getBlockAt(cachedColumn.column, x, y, z);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+
+        evictIfNeeded(chunkPosition);
+        return block;
+    }
+
+    public void removeChunk(int chunkX, int chunkZ) {
+        if (!cache) {
+            return;
+        }
+
+        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
+        Stripe stripe = getStripe(chunkPosition);
+        long stamp = stripe.lock.writeLock();
+        try {
+            CachedColumn cachedColumn = stripe.chunks.remove(chunkPosition);
+            if (cachedColumn != null) {
+                release(cachedColumn);
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every chunk from this cache. Must be called when the session closes, so this cache stops counting
+     * towards the memory used by all caches.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.chunks.clear();
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+        TOTAL_SIZE.addAndGet(-size.getAndSet(0));
+        if (cache && !cleared) {
+            ACTIVE_CACHES.decrementAndGet();
+        }
+        cleared = true;
+
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                session.getConnector().getLogger().error("Unable to delete the chunk cache spill file", e);
+            }
+        }
+    }
+
+    /**
+     * @return the estimated amount of bytes used by all chunk caches combined
+     */
+    public static long getTotalSize() {
+        return TOTAL_SIZE.get();
+    }
+
+    /**
+     * Creates a copy of the column without any data we don't need to keep.
+     */
+    private static Column compactColumn(Column column) {
+        Chunk[] sections = column.getChunks();
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = compactSection(sections[i]);
+        }
+        return new Column(column.getX(), column.getZ(), sections, column.getTileEntities(), EMPTY_HEIGHT_MAPS, compactBiomes(column.getBiomeData()));
+    }
+
+    /**
+     * Sections that only contain air are not stored - a null section is treated as air everywhere
+     */
+    private static Chunk compactSection(Chunk section) {
+        return section == null || section.isEmpty() ? null : section;
+    }
+
+    private static int[] compactBiomes(int[] biomeData) {
+        if (biomeData == null || biomeData.length == 0) {
+            return biomeData;
+        }
+
+        int biome = biomeData[0];
+        for (int i = 1; i < biomeData.length; i++) {
+            if (biomeData[i] != biome) {
+                return biomeData;
+            }
+        }
+
+        synchronized (UNIFORM_BIOMES) {
+            int[] sharedBiomes = UNIFORM_BIOMES.get(biome);
+            if (sharedBiomes == null || sharedBiomes.length != biomeData.length) {
+                UNIFORM_BIOMES.put(biome, sharedBiomes = biomeData);
+            }
+            return sharedBiomes;
+        }
+    }
+
+    private static int estimateSize(Column column) {
+        int size = 64; // Column object and arrays
+        for (Chunk section : column.getChunks()) {
+            if (section != null) {
+                size += 64 + section.getStorage().getData().length * 8;
+                if (!(section.getPalette() instanceof GlobalPalette)) {
+                    size += section.getPalette().size() * 16;
+                }
+            }
+        }
+        size += column.getTileEntities().length * 256; // Rough estimate
+        int[] biomeData = column.getBiomeData();
+        if (biomeData != null && biomeData.length != 0) {
+            synchronized (UNIFORM_BIOMES) {
+                if (UNIFORM_BIOMES.get(biomeData[0]) != biomeData) {
+                    size += biomeData.length * 4;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static int getBlockAt(Column column, int x, int y, int z) {
+        if ((y >> 4) < 0 || (y >> 4) >= column.getChunks().length) {
             return BlockTranslator.JAVA_AIR_ID;
         }
 
@@ -110,12 +435,213 @@ public class ChunkCache {
         return BlockTranslator.JAVA_AIR_ID;
     }
 
-    public void removeChunk(int chunkX, int chunkZ) {
-        if (!cache) {
+    private Stripe getStripe(long chunkPosition) {
+        return stripes[(int) HashCommon.mix(chunkPosition) & (STRIPES - 1)];
+    }
+
+    /**
+     * Gets a column from a stripe, reading it back from the spill file first if needed. The write lock of the stripe
+     * must be held.
+     */
+    private CachedColumn loadColumn(Stripe stripe, long chunkPosition) {
+        CachedColumn cachedColumn = stripe.chunks.get(chunkPosition);
+        if (cachedColumn == null || cachedColumn.column != null) {
+            return cachedColumn;
+        }
+
+        try {
+            // The space in the spill file is freed even if reading fails
+            cachedColumn.column = compactColumn(spillFile.readColumn(cachedColumn.spillLocation, (int) (chunkPosition >> 32), (int) chunkPosition));
+        } catch (IOException e) {
+            session.getConnector().getLogger().error("Unable to read a chunk from the chunk cache spill file", e);
+            stripe.chunks.remove(chunkPosition);
+            return null;
+        } finally {
+            cachedColumn.spillLocation = -1;
+        }
+
+        updateSize(cachedColumn);
+        return cachedColumn;
+    }
+
+    /**
+     * Writes a column to the spill file and drops it from the heap. The write lock of the column's stripe must be held.
+     *
+     * @return false if the column couldn't be spilled and should be removed instead
+     */
+    private boolean spill(CachedColumn cachedColumn) {
+        if (spillFile == null) {
+            return false;
+        }
+
+        long location;
+        try {
+            location = spillFile.writeColumn(cachedColumn.column);
+        } catch (IOException e) {
+            session.getConnector().getLogger().error("Unable to write a chunk to the chunk cache spill file", e);
+            return false;
+        }
+        if (location == -1) {
+            return false;
+        }
+
+        cachedColumn.column = null;
+        cachedColumn.spillLocation = location;
+        addSize(-cachedColumn.size);
+        cachedColumn.size = 0;
+        return true;
+    }
+
+    /**
+     * Releases the memory or spill file space of a column that was removed from the cache.
+     */
+    private void release(CachedColumn cachedColumn) {
+        addSize(-cachedColumn.size);
+        if (cachedColumn.spillLocation != -1) {
+            spillFile.free(cachedColumn.spillLocation);
+        }
+    }
+
+    private void updateSize(CachedColumn cachedColumn) {
+        int newSize = estimateSize(cachedColumn.column);
+        addSize(newSize - cachedColumn.size);
+        cachedColumn.size = newSize;
+    }
+
+    private void addSize(long delta) {
+        size.addAndGet(delta);
+        TOTAL_SIZE.addAndGet(delta);
+    }
+
+    /**
+     * @return how many bytes this cache may currently use before it has to evict chunks
+     */
+    private long getSizeLimit() {
+        long limit = maxSize > 0 ? maxSize : Long.MAX_VALUE;
+        if (maxTotalSize > 0 && TOTAL_SIZE.get() > maxTotalSize) {
+            // All caches combined are over budget - only the caches using more than their fair share have to make room
+            limit = Math.min(limit, maxTotalSize / Math.max(1, ACTIVE_CACHES.get()));
+        }
+        return limit;
+    }
+
+    /**
+     * If this cache is over its budget, or all caches combined are and this cache uses more than its fair share, spill
+     * or remove the least recently used chunks until we're comfortably below it again. Without a spill file, only
+     * chunks the client doesn't have loaded are removed, as the rest are still needed for collision and interactions;
+     * the budget is then only a soft target that a large view distance can go over. No stripe lock may be held when
+     * calling this.
+     *
+     * @param keep the chunk that was just used, which is never removed
+     */
+    private void evictIfNeeded(long keep) {
+        long limit = getSizeLimit();
+        if (size.get() <= limit || !evictionLock.tryLock()) {
+            // If another thread is already evicting, it will take care of this too
             return;
         }
 
-        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
-        chunks.remove(chunkPosition);
+        try {
+            // Leave some room so we don't have to go through this again for the next chunk
+            long target = (long) (limit * 0.9);
+
+            Vector3f position = session.getPlayerEntity().getPosition();
+            int playerChunkX = position.getFloorX() >> 4;
+            int playerChunkZ = position.getFloorZ() >> 4;
+            long renderDistanceSquared = (long) session.getRenderDistance() * session.getRenderDistance();
+
+            LongArrayList positions = new LongArrayList();
+            LongArrayList lastUsed = new LongArrayList();
+            for (Stripe stripe : stripes) {
+                long stamp = stripe.lock.readLock();
+                try {
+                    for (Long2ObjectMap.Entry<CachedColumn> entry : Long2ObjectMaps.fastIterable(stripe.chunks)) {
+                        long chunkPosition = entry.getLongKey();
+                        if (entry.getValue().column == null || chunkPosition == keep) {
+                            continue;
+                        }
+                        if (spillFile == null) {
+                            long deltaX = (int) (chunkPosition >> 32) - playerChunkX;
+                            long deltaZ = (int) chunkPosition - playerChunkZ;
+                            if (deltaX * deltaX + deltaZ * deltaZ <= renderDistanceSquared) {
+                                continue;
+                            }
+                        }
+                        positions.add(chunkPosition);
+                        lastUsed.add(entry.getValue().lastUsed);
+                    }
+                } finally {
+                    stripe.lock.unlockRead(stamp);
+                }
+            }
+
+            // Least recently used first
+            int[] order = new int[positions.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            IntArrays.quickSort(order, (a, b) -> Long.compare(lastUsed.getLong(a), lastUsed.getLong(b)));
+
+            int evicted = 0;
+            for (int index : order) {
+                if (size.get() <= target) {
+                    break;
+                }
+
+                long chunkPosition = positions.getLong(index);
+                Stripe stripe = getStripe(chunkPosition);
+                long stamp = stripe.lock.writeLock();
+                try {
+                    CachedColumn cachedColumn = stripe.chunks.get(chunkPosition);
+                    if (cachedColumn == null || cachedColumn.column == null) {
+                        // Removed or spilled since we looked
+                        continue;
+                    }
+                    if (!spill(cachedColumn)) {
+                        stripe.chunks.remove(chunkPosition);
+                        release(cachedColumn);
+                    }
+                    evicted++;
+                } finally {
+                    stripe.lock.unlockWrite(stamp);
+                }
+            }
+            session.getConnector().getLogger().debug("Evicted " + evicted + " chunks from the chunk cache of " + session.getName());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final Long2ObjectMap<CachedColumn> chunks = new Long2ObjectOpenHashMap<>();
+    }
+
+    private static class CachedColumn {
+        /**
+         * The column, or null if it's currently in the spill file
+         */
+        private Column column;
+        /**
+         * The estimated size of this column when it was last measured, or 0 when spilled
+         */
+        private int size;
+        /**
+         * The location of this column in the spill file, or -1 if it's on the heap
+         */
+        private long spillLocation = -1;
+        /**
+         * When this column was last used, to evict the least recently used columns first
+         */
+        private long lastUsed;
+
+        private CachedColumn(Column column) {
+            this.column = column;
+            markUsed();
+        }
+
+        private void markUsed() {
+            lastUsed = System.currentTimeMillis();
+        }
     }
 }
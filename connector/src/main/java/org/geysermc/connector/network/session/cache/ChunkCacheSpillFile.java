@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.Column;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.GlobalPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.ListPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.MapPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.Palette;
+import com.github.steveice10.opennbt.NBTIO;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A temporary, memory-mapped file that cold columns of a session's {@link ChunkCache} are written to so they don't
+ * have to stay on the heap. The file is split into blocks of the same size, and a column is stored in as many blocks
+ * as it needs, each pointing to the next. Freed blocks go on a free list and are reused by any later column, so the
+ * file never fragments, no matter in which order columns come and go. The file grows a segment of blocks at a time.
+ *
+ * This class is thread-safe; columns are (de)serialized outside of the lock. Once closed, the file is deleted and
+ * nothing can be written to it anymore.
+ */
+public class ChunkCacheSpillFile implements Closeable {
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final int BLOCK_SIZE = 4096;
+    private static final int BLOCKS_PER_SEGMENT = SEGMENT_SIZE / BLOCK_SIZE;
+    /**
+     * Every block starts with the index of the next block of the same column
+     */
+    private static final int BLOCK_HEADER_SIZE = 4;
+    private static final int NO_BLOCK = -1;
+
+    private final int maxSegments;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final IntArrayList freeBlocks = new IntArrayList();
+
+    private Path path;
+    private FileChannel channel;
+    private boolean closed = false;
+
+    /**
+     * @param maxSize the maximum size of the file in bytes
+     */
+    public ChunkCacheSpillFile(long maxSize) {
+        this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxSize / SEGMENT_SIZE);
+    }
+
+    /**
+     * Writes a column to this file.
+     *
+     * @return the location of the column in this file, or -1 if the file is full
+     */
+    public long writeColumn(Column column) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(8192);
+        DataOutputStream out = new DataOutputStream(byteStream);
+        writeColumn(out, column);
+        out.flush();
+        return store(byteStream.toByteArray());
+    }
+
+    /**
+     * Reads a column back and frees its space in this file, even if the column can't be read.
+     */
+    public Column readColumn(long location, int chunkX, int chunkZ) throws IOException {
+        byte[] data;
+        try {
+            data = load(location);
+        } finally {
+            free(location);
+        }
+        return readColumn(new DataInputStream(new ByteArrayInputStream(data)), chunkX, chunkZ);
+    }
+
+    /**
+     * Frees the space a column was using without reading it.
+     */
+    public synchronized void free(long location) {
+        if (closed) {
+            return;
+        }
+        int block = (int) location;
+        while (block != NO_BLOCK) {
+            freeBlocks.add(block);
+            block = getBuffer(block).getInt(getOffset(block));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        segments.clear();
+        freeBlocks.clear();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (path != null) {
+            Files.deleteIfExists(path);
+            path = null;
+        }
+    }
+
+    private synchronized long store(byte[] data) throws IOException {
+        if (closed) {
+            return -1;
+        }
+
+        // The total length is stored in front of the data
+        int length = data.length + 4;
+        int blockCount = (length + BLOCK_SIZE - BLOCK_HEADER_SIZE - 1) / (BLOCK_SIZE - BLOCK_HEADER_SIZE);
+        while (freeBlocks.size() < blockCount) {
+            if (!addSegment()) {
+                return -1;
+            }
+        }
+
+        int firstBlock = freeBlocks.popInt();
+        int block = firstBlock;
+        int written = 0;
+        while (true) {
+            MappedByteBuffer buffer = getBuffer(block);
+            int offset = getOffset(block);
+            buffer.position(offset + BLOCK_HEADER_SIZE);
+            int space = BLOCK_SIZE - BLOCK_HEADER_SIZE;
+            if (block == firstBlock) {
+                buffer.putInt(data.length);
+                space -= 4;
+            }
+            int count = Math.min(space, data.length - written);
+            buffer.put(data, written, count);
+            written += count;
+
+            int nextBlock = written < data.length ? freeBlocks.popInt() : NO_BLOCK;
+            buffer.putInt(offset, nextBlock);
+            if (nextBlock == NO_BLOCK) {
+                return firstBlock;
+            }
+            block = nextBlock;
+        }
+    }
+
+    private synchronized byte[] load(long location) throws IOException {
+        if (closed) {
+            throw new IOException("The spill file has already been closed");
+        }
+
+        int block = (int) location;
+        MappedByteBuffer buffer = getBuffer(block);
+        byte[] data = new byte[buffer.getInt(getOffset(block) + BLOCK_HEADER_SIZE)];
+        int read = 0;
+        int skip = 4;
+        while (block != NO_BLOCK) {
+            buffer = getBuffer(block);
+            int offset = getOffset(block);
+            buffer.position(offset + BLOCK_HEADER_SIZE + skip);
+            int count = Math.min(BLOCK_SIZE - BLOCK_HEADER_SIZE - skip, data.length - read);
+            buffer.get(data, read, count);
+            read += count;
+            skip = 0;
+            block = buffer.getInt(offset);
+        }
+        return data;
+    }
+
+    /**
+     * Maps another segment at the end of the file and adds its blocks to the free list.
+     *
+     * @return false if the file has reached its maximum size
+     */
+    private boolean addSegment() throws IOException {
+        if (segments.size() >= maxSegments) {
+            return false;
+        }
+
+        if (channel == null) {
+            // Deleted in close(); deleteOnExit() would keep the path of every session's file around until shutdown
+            path = Files.createTempFile("geyser-chunks-", ".bin");
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        int index = segments.size();
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) index * SEGMENT_SIZE, SEGMENT_SIZE));
+        // Added in reverse, so blocks are handed out from the start of the segment
+        for (int block = (index + 1) * BLOCKS_PER_SEGMENT - 1; block >= index * BLOCKS_PER_SEGMENT; block--) {
+            freeBlocks.add(block);
+        }
+        return true;
+    }
+
+    private MappedByteBuffer getBuffer(int block) {
+        return segments.get(block / BLOCKS_PER_SEGMENT);
+    }
+
+    private static int getOffset(int block) {
+        return (block % BLOCKS_PER_SEGMENT) * BLOCK_SIZE;
+    }
+
+    private static void writeColumn(DataOutput out, Column column) throws IOException {
+        Chunk[] sections = column.getChunks();
+        out.writeByte(sections.length);
+        for (Chunk section : sections) {
+            if (section == null) {
+                out.writeByte(0);
+                continue;
+            }
+
+            int bitsPerEntry = section.getStorage().getBitsPerEntry();
+            out.writeByte(bitsPerEntry);
+            out.writeShort(section.getBlockCount());
+            Palette palette = section.getPalette();
+            if (palette instanceof GlobalPalette) {
+                out.writeShort(0);
+            } else {
+                out.writeShort(palette.size());
+                for (int i = 0; i < palette.size(); i++) {
+                    out.writeInt(palette.idToState(i));
+                }
+            }
+
+            long[] data = section.getStorage().getData();
+            out.writeShort(data.length);
+            for (long word : data) {
+                out.writeLong(word);
+            }
+        }
+
+        CompoundTag[] tileEntities = column.getTileEntities();
+        out.writeInt(tileEntities.length);
+        for (CompoundTag tileEntity : tileEntities) {
+            NBTIO.writeTag(out, tileEntity);
+        }
+
+        int[] biomeData = column.getBiomeData();
+        if (biomeData == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(biomeData.length);
+            for (int biome : biomeData) {
+                out.writeInt(biome);
+            }
+        }
+    }
+
+    private static Column readColumn(DataInput in, int chunkX, int chunkZ) throws IOException {
+        Chunk[] sections = new Chunk[in.readUnsignedByte()];
+        for (int sectionY = 0; sectionY < sections.length; sectionY++) {
+            int bitsPerEntry = in.readUnsignedByte();
+            if (bitsPerEntry == 0) {
+                continue;
+            }
+            int blockCount = in.readUnsignedShort();
+
+            int[] palette = new int[in.readUnsignedShort()];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = in.readInt();
+            }
+            long[] data = new long[in.readUnsignedShort()];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = in.readLong();
+            }
+
+            sections[sectionY] = createSection(blockCount, bitsPerEntry, palette, data);
+        }
+
+        CompoundTag[] tileEntities = new CompoundTag[in.readInt()];
+        for (int i = 0; i < tileEntities.length; i++) {
+            tileEntities[i] = (CompoundTag) NBTIO.readTag(in);
+        }
+
+        int[] biomeData = null;
+        int biomeLength = in.readInt();
+        if (biomeLength != -1) {
+            biomeData = new int[biomeLength];
+            for (int i = 0; i < biomeLength; i++) {
+                biomeData[i] = in.readInt();
+            }
+        }
+
+        return new Column(chunkX, chunkZ, sections, tileEntities, new CompoundTag(""), biomeData);
+    }
+
+    /**
+     * Puts a section back together from its palette and storage, the same way it was read from the network.
+     */
+    private static Chunk createSection(int blockCount, int bitsPerEntry, int[] states, long[] data) {
+        Palette palette;
+        if (states.length == 0) {
+            palette = new GlobalPalette();
+        } else {
+            palette = bitsPerEntry <= 4 ? new ListPalette(bitsPerEntry) : new MapPalette(bitsPerEntry);
+            for (int id = 0; id < states.length; id++) {
+                if (palette.stateToId(states[id]) != id) {
+                    // The palette doesn't hand out IDs in order, so the storage can't be used as-is
+                    return createSectionPerBlock(bitsPerEntry, states, data);
+                }
+            }
+        }
+        return new Chunk(blockCount, palette, new BitStorage(bitsPerEntry, 4096, data));
+    }
+
+    private static Chunk createSectionPerBlock(int bitsPerEntry, int[] states, long[] data) {
+        // Since 1.16, entries never span two longs
+        int valuesPerLong = 64 / bitsPerEntry;
+        long mask = (1L << bitsPerEntry) - 1;
+        Chunk section = new Chunk();
+        for (int index = 0; index < 4096; index++) {
+            int id = (int) ((data[index / valuesPerLong] >>> ((index % valuesPerLong) * bitsPerEntry)) & mask);
+            int state = states.length == 0 ? id : states[id];
+            if (state != BlockTranslator.JAVA_AIR_ID) {
+                // Java storage is in YZX order
+                section.set(index & 0xF, index >> 8, (index >> 4) & 0xF, state);
+            }
+        }
+        return section;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import org.geysermc.connector.utils.XXHash64;
+
+/**
+ * Keeps track of chunk blobs that have been announced to a Bedrock client through a {@link com.nukkitx.protocol.bedrock.packet.LevelChunkPacket}
+ * with caching enabled, but that the client has not yet confirmed or requested.
+ */
+public class ClientBlobCache {
+    /**
+     * The maximum amount of blobs that can wait on a response at once. A client that doesn't answer would otherwise
+     * make us hold on to every chunk we send it; once this is reached, chunks are sent without caching instead.
+     */
+    private static final int MAX_PENDING_BLOBS = 8192;
+
+    /**
+     * If the client has told us it supports the blob cache
+     */
+    @Getter
+    @Setter
+    private volatile boolean supported = false;
+
+    /**
+     * Blobs that are waiting on a ClientCacheBlobStatusPacket from the client
+     */
+    private final Long2ObjectMap<PendingBlob> pendingBlobs = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * @param count the amount of blobs that are about to be added
+     * @return true if the blobs can be added without going over the limit of pending blobs
+     */
+    public boolean hasRoomFor(int count) {
+        synchronized (pendingBlobs) {
+            return pendingBlobs.size() + count <= MAX_PENDING_BLOBS;
+        }
+    }
+
+    /**
+     * Register a blob as sent to the client
+     *
+     * @param blob the serialized sub chunk or biome data
+     * @return the blob ID to include in the LevelChunkPacket
+     */
+    public long addBlob(byte[] blob) {
+        long blobId = XXHash64.hash(blob);
+        synchronized (pendingBlobs) {
+            PendingBlob pendingBlob = pendingBlobs.get(blobId);
+            if (pendingBlob == null) {
+                pendingBlobs.put(blobId, new PendingBlob(blob, 1));
+            } else {
+                // The same blob can be part of multiple chunks that are still waiting on a response
+                pendingBlob.references++;
+            }
+        }
+        return blobId;
+    }
+
+    /**
+     * Called when the client has either confirmed or requested a blob.
+     *
+     * @param blobId the ID of the blob
+     * @return the blob data, or null if we have no record of this blob
+     */
+    public byte[] removeBlob(long blobId) {
+        synchronized (pendingBlobs) {
+            PendingBlob pendingBlob = pendingBlobs.get(blobId);
+            if (pendingBlob == null) {
+                return null;
+            }
+
+            if (--pendingBlob.references <= 0) {
+                pendingBlobs.remove(blobId);
+            }
+            return pendingBlob.data;
+        }
+    }
+
+    public void clear() {
+        synchronized (pendingBlobs) {
+            pendingBlobs.clear();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingBlob {
+        private final byte[] data;
+        private int references;
+    }
+}
@@ -27,6 +27,8 @@ package org.geysermc.connector.network.session.cache;
 
 import it.unimi.dsi.fastutil.longs.*;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import lombok.Getter;
 import org.geysermc.connector.entity.Tickable;
 import org.geysermc.connector.entity.Entity;
@@ -39,20 +41,29 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * Each session has its own EntityCache in the occasion that an entity packet is sent specifically
  * for that player (e.g. seeing vanished players from /vanish)
+ * <p>
+ * Not thread-safe - it may only be accessed on the session's event loop.
  */
 public class EntityCache {
     private final GeyserSession session;
 
+    /**
+     * All cached entities, keyed by their Java entity ID
+     */
     @Getter
-    private Long2ObjectMap<Entity> entities = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
+    private Long2ObjectMap<Entity> entities = new Long2ObjectOpenHashMap<>();
+    private Long2ObjectMap<Entity> entitiesByGeyserId = new Long2ObjectOpenHashMap<>();
+    /**
+     * The cached entities grouped by their class, so type queries only look at the entities that can match
+     */
+    private Map<Class<? extends Entity>, Set<Entity>> entitiesByClass = new HashMap<>();
     /**
-     * A list of all entities that must be ticked.
+     * All entities that must be ticked.
      */
-    private final List<Tickable> tickableEntities = Collections.synchronizedList(new ArrayList<>());
-    private Long2LongMap entityIdTranslations = Long2LongMaps.synchronize(new Long2LongOpenHashMap());
-    private Map<UUID, PlayerEntity> playerEntities = Collections.synchronizedMap(new HashMap<>());
-    private Map<UUID, BossBar> bossBars = Collections.synchronizedMap(new HashMap<>());
-    private final Long2LongMap cachedPlayerEntityLinks = Long2LongMaps.synchronize(new Long2LongOpenHashMap());
+    private final Set<Tickable> tickableEntities = new ReferenceLinkedOpenHashSet<>();
+    private Map<UUID, PlayerEntity> playerEntities = new HashMap<>();
+    private Map<UUID, BossBar> bossBars = new HashMap<>();
+    private final Long2LongMap cachedPlayerEntityLinks = new Long2LongOpenHashMap();
 
     @Getter
     private final AtomicLong nextEntityId = new AtomicLong(2L);
@@ -74,9 +85,10 @@ public class EntityCache {
 
     public boolean cacheEntity(Entity entity) {
         // Check to see if the entity exists, otherwise we can end up with duplicated mobs
-        if (!entityIdTranslations.containsKey(entity.getEntityId())) {
-            entityIdTranslations.put(entity.getEntityId(), entity.getGeyserId());
-            entities.put(entity.getGeyserId(), entity);
+        if (!entities.containsKey(entity.getEntityId())) {
+            entities.put(entity.getEntityId(), entity);
+            entitiesByGeyserId.put(entity.getGeyserId(), entity);
+            entitiesByClass.computeIfAbsent(entity.getClass(), entityClass -> new ReferenceOpenHashSet<>()).add(entity);
             return true;
         }
         return false;
@@ -84,12 +96,21 @@ public class EntityCache {
 
     public boolean removeEntity(Entity entity, boolean force) {
         if (entity != null && entity.isValid() && (force || entity.despawnEntity(session))) {
-            long geyserId = entityIdTranslations.remove(entity.getEntityId());
-            entities.remove(geyserId);
+            Entity cachedEntity = entities.remove(entity.getEntityId());
+            if (cachedEntity != null) {
+                entitiesByGeyserId.remove(cachedEntity.getGeyserId());
+                Set<Entity> entitiesOfClass = entitiesByClass.get(cachedEntity.getClass());
+                if (entitiesOfClass != null) {
+                    entitiesOfClass.remove(cachedEntity);
+                }
+            }
 
             if (entity instanceof Tickable) {
                 tickableEntities.remove(entity);
             }
+            // Forced removals skip despawnEntity, so don't rely on it to clean these up
+            session.getEntityMovementBuffer().discard(entity);
+            session.getEntityInterestManager().discard(entity);
             return true;
         }
         return false;
@@ -103,18 +124,27 @@ public class EntityCache {
     }
 
     public Entity getEntityByGeyserId(long geyserId) {
-        return entities.get(geyserId);
+        return entitiesByGeyserId.get(geyserId);
     }
 
     public Entity getEntityByJavaId(long javaId) {
-        return entities.get(entityIdTranslations.get(javaId));
+        return entities.get(javaId);
     }
 
     public <T extends Entity> Set<T> getEntitiesByType(Class<T> entityType) {
         Set<T> entitiesOfType = new ObjectOpenHashSet<>();
-        for (Entity entity : (entityType == PlayerEntity.class ? playerEntities : entities).values()) {
-            if (entity.is(entityType)) {
-                entitiesOfType.add(entity.as(entityType));
+        if (entityType == PlayerEntity.class) {
+            for (PlayerEntity entity : playerEntities.values()) {
+                entitiesOfType.add(entityType.cast(entity));
+            }
+            return entitiesOfType;
+        }
+
+        for (Map.Entry<Class<? extends Entity>, Set<Entity>> entry : entitiesByClass.entrySet()) {
+            if (entityType.isAssignableFrom(entry.getKey())) {
+                for (Entity entity : entry.getValue()) {
+                    entitiesOfType.add(entityType.cast(entity));
+                }
             }
         }
         return entitiesOfType;
@@ -154,7 +184,8 @@ public class EntityCache {
 
     public void clear() {
         entities = null;
-        entityIdTranslations = null;
+        entitiesByGeyserId = null;
+        entitiesByClass = null;
         playerEntities = null;
         bossBars = null;
     }
@@ -167,7 +198,7 @@ public class EntityCache {
         cachedPlayerEntityLinks.put(playerId, linkedEntityId);
     }
 
-    public List<Tickable> getTickableEntities() {
+    public Set<Tickable> getTickableEntities() {
         return tickableEntities;
     }
 }
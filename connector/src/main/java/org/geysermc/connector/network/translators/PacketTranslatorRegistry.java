@@ -29,28 +29,45 @@ import com.github.steveice10.mc.protocol.packet.ingame.server.ServerPlayerListDa
 import com.github.steveice10.mc.protocol.packet.ingame.server.world.ServerUpdateLightPacket;
 import com.github.steveice10.packetlib.packet.Packet;
 import com.nukkitx.protocol.bedrock.BedrockPacket;
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.utils.FileUtils;
 import org.geysermc.connector.utils.LanguageUtils;
-import org.reflections.Reflections;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 public class PacketTranslatorRegistry<T> {
     private final Map<Class<? extends T>, PacketTranslator<? extends T>> translators = new HashMap<>();
 
+    /**
+     * Every translated or ignored packet class gets a slot in this table, which also keeps its statistics
+     */
+    private TranslatorSlot[] table;
+
+    /**
+     * Looks up the slot of a packet class. The JVM caches the slot of each class, so this is much cheaper than a map lookup.
+     */
+    private final ClassValue<TranslatorSlot> slotLookup = new ClassValue<TranslatorSlot>() {
+        @Override
+        protected TranslatorSlot computeValue(Class<?> type) {
+            for (TranslatorSlot slot : table) {
+                if (slot.packetClass == type) {
+                    return slot;
+                }
+            }
+            return TranslatorSlot.MISSING;
+        }
+    };
+
     public static final PacketTranslatorRegistry<Packet> JAVA_TRANSLATOR = new PacketTranslatorRegistry<>();
     public static final PacketTranslatorRegistry<BedrockPacket> BEDROCK_TRANSLATOR = new PacketTranslatorRegistry<>();
 
-    private static final ObjectArrayList<Class<?>> IGNORED_PACKETS = new ObjectArrayList<>();
+    private static final Set<Class<?>> IGNORED_PACKETS = new ObjectOpenHashSet<>();
 
     static {
-        Reflections ref = GeyserConnector.getInstance().useXmlReflections() ? FileUtils.getReflections("org.geysermc.connector.network.translators") : new Reflections("org.geysermc.connector.network.translators");
-
-        for (Class<?> clazz : ref.getTypesAnnotatedWith(Translator.class)) {
+        for (Class<?> clazz : FileUtils.getGeneratedClassesForType(Translator.class)) {
             Class<?> packet = clazz.getAnnotation(Translator.class).packet();
 
             GeyserConnector.getInstance().getLogger().debug("Found annotated translator: " + clazz.getCanonicalName() + " : " + packet.getSimpleName());
@@ -76,6 +93,9 @@ public class PacketTranslatorRegistry<T> {
 
         IGNORED_PACKETS.add(ServerUpdateLightPacket.class); // Light is handled on Bedrock for us
         IGNORED_PACKETS.add(ServerPlayerListDataPacket.class); // Cant be implemented in bedrock
+
+        JAVA_TRANSLATOR.buildTable();
+        BEDROCK_TRANSLATOR.buildTable();
     }
 
     private PacketTranslatorRegistry() {
@@ -85,22 +105,109 @@ public class PacketTranslatorRegistry<T> {
         // no-op
     }
 
+    /**
+     * @return true if packets of this class are intentionally not translated, so they don't need to be decoded at all
+     */
+    public static boolean isIgnoredPacket(Class<?> clazz) {
+        return IGNORED_PACKETS.contains(clazz);
+    }
+
+    private void buildTable() {
+        List<TranslatorSlot> slots = new ArrayList<>();
+        for (Map.Entry<Class<? extends T>, PacketTranslator<? extends T>> entry : translators.entrySet()) {
+            slots.add(new TranslatorSlot(entry.getKey(), entry.getValue()));
+        }
+        for (Class<?> ignoredPacket : IGNORED_PACKETS) {
+            if (!translators.containsKey(ignoredPacket)) {
+                slots.add(new TranslatorSlot(ignoredPacket, null));
+            }
+        }
+        this.table = slots.toArray(new TranslatorSlot[0]);
+    }
+
+    /**
+     * @return true if packets of this class have a translator. Safe to call from any thread
+     */
+    public boolean hasTranslator(Class<?> clazz) {
+        return slotLookup.get(clazz).translator != null;
+    }
+
     @SuppressWarnings("unchecked")
     public <P extends T> boolean translate(Class<? extends P> clazz, P packet, GeyserSession session) {
-        if (!session.getUpstream().isClosed() && !session.isClosed()) {
-            try {
-                if (translators.containsKey(clazz)) {
-                    ((PacketTranslator<P>) translators.get(clazz)).translate(packet, session);
-                    return true;
-                } else {
-                    if (!IGNORED_PACKETS.contains(clazz))
-                        GeyserConnector.getInstance().getLogger().debug("Could not find packet for " + (packet.toString().length() > 25 ? packet.getClass().getSimpleName() : packet));
-                }
-            } catch (Throwable ex) {
-                GeyserConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.network.translator.packet.failed", packet.getClass().getSimpleName()), ex);
-                ex.printStackTrace();
+        if (session.getUpstream().isClosed() || session.isClosed()) {
+            return false;
+        }
+
+        TranslatorSlot slot = slotLookup.get(clazz);
+        PacketTranslator<P> translator = (PacketTranslator<P>) slot.translator;
+        if (translator == null) {
+            if (slot == TranslatorSlot.MISSING) {
+                GeyserConnector.getInstance().getLogger().debug("Could not find packet for " + (packet.toString().length() > 25 ? packet.getClass().getSimpleName() : packet));
+            } else {
+                slot.invocations.increment();
+            }
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            translator.translate(packet, session);
+            return true;
+        } catch (Throwable ex) {
+            slot.failures.increment();
+            GeyserConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.network.translator.packet.failed", packet.getClass().getSimpleName()), ex);
+            ex.printStackTrace();
+            return false;
+        } finally {
+            slot.translationTime.add(System.nanoTime() - start);
+            slot.invocations.increment();
+        }
+    }
+
+    /**
+     * @return the statistics of every packet that has been received at least once, by packet name
+     */
+    public Map<String, TranslatorSlot> getStatistics() {
+        Map<String, TranslatorSlot> statistics = new TreeMap<>();
+        for (TranslatorSlot slot : table) {
+            if (slot.getInvocations() != 0) {
+                statistics.put(slot.packetClass.getSimpleName(), slot);
             }
         }
-        return false;
+        return statistics;
+    }
+
+    public static class TranslatorSlot {
+        /**
+         * Used for packets without a translator that aren't ignored either
+         */
+        private static final TranslatorSlot MISSING = new TranslatorSlot(null, null);
+
+        private final Class<?> packetClass;
+        private final PacketTranslator<?> translator;
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder translationTime = new LongAdder();
+
+        private TranslatorSlot(Class<?> packetClass, PacketTranslator<?> translator) {
+            this.packetClass = packetClass;
+            this.translator = translator;
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return the total time spent translating this packet, in nanoseconds
+         */
+        public long getTranslationTime() {
+            return translationTime.sum();
+        }
     }
 }
@@ -56,7 +56,7 @@ public class BedrockSetLocalPlayerAsInitializedTranslator extends PacketTranslat
                 for (SkullPlayerEntity entity : session.getSkullCache().values()) {
                     entity.spawnEntity(session);
 
-                    SkinManager.refreshPlayerSkull(entity, session, (() -> session.getConnector().getGeneralThreadPool().schedule(() -> {
+                    SkinManager.refreshPlayerSkull(entity, session, (() -> session.schedule(() -> {
                         // Delay to minimize split-second "player" pop-in
                         entity.getMetadata().getFlags().setFlag(EntityFlag.INVISIBLE, false);
                         entity.updateBedrockMetadata(session);
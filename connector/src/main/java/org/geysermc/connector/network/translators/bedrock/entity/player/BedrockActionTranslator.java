@@ -129,7 +129,7 @@ public class BedrockActionTranslator extends PacketTranslator<PlayerActionPacket
             case BLOCK_INTERACT:
                 // Client means to interact with a block; cancel bucket interaction, if any
                 if (session.getBucketScheduledFuture() != null) {
-                    session.getBucketScheduledFuture().cancel(true);
+                    session.getBucketScheduledFuture().cancel();
                     session.setBucketScheduledFuture(null);
                 }
                 // Otherwise handled in BedrockInventoryTransactionTranslator
@@ -206,7 +206,7 @@ public class BedrockActionTranslator extends PacketTranslator<PlayerActionPacket
                 break;
             case JUMP:
                 session.setJumping(true);
-                session.getConnector().getGeneralThreadPool().schedule(() -> {
+                session.schedule(() -> {
                     session.setJumping(false);
                 }, 1, TimeUnit.SECONDS);
                 break;
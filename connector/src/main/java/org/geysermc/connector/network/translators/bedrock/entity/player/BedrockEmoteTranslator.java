@@ -40,10 +40,17 @@ public class BedrockEmoteTranslator extends PacketTranslator<EmotePacket> {
         for (GeyserSession otherSession : session.getConnector().getPlayers()) {
             if (otherSession != session) {
                 if (otherSession.isClosed()) continue;
-                Entity otherEntity = otherSession.getEntityCache().getEntityByJavaId(javaId);
-                if (otherEntity == null) continue;
-                packet.setRuntimeEntityId(otherEntity.getGeyserId());
-                otherSession.sendUpstreamPacket(packet);
+                // The other session's entity cache may only be read on its own event loop
+                otherSession.getEventLoop().execute(() -> {
+                    if (otherSession.isClosed()) return;
+                    Entity otherEntity = otherSession.getEntityCache().getEntityByJavaId(javaId);
+                    if (otherEntity == null) return;
+                    EmotePacket emotePacket = new EmotePacket();
+                    emotePacket.setRuntimeEntityId(otherEntity.getGeyserId());
+                    emotePacket.setEmoteId(packet.getEmoteId());
+                    emotePacket.getFlags().addAll(packet.getFlags());
+                    otherSession.sendUpstreamPacket(emotePacket);
+                });
             }
         }
     }
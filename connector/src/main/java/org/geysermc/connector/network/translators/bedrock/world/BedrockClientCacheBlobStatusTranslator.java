@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.bedrock.world;
+
+import com.nukkitx.protocol.bedrock.packet.ClientCacheBlobStatusPacket;
+import com.nukkitx.protocol.bedrock.packet.ClientCacheMissResponsePacket;
+import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.session.cache.ClientBlobCache;
+import org.geysermc.connector.network.translators.PacketTranslator;
+import org.geysermc.connector.network.translators.Translator;
+
+/**
+ * Sent by the client in response to a cached LevelChunkPacket - acks are blobs the client already has stored,
+ * and naks are blobs we need to send in full.
+ */
+@Translator(packet = ClientCacheBlobStatusPacket.class)
+public class BedrockClientCacheBlobStatusTranslator extends PacketTranslator<ClientCacheBlobStatusPacket> {
+
+    @Override
+    public void translate(ClientCacheBlobStatusPacket packet, GeyserSession session) {
+        ClientBlobCache blobCache = session.getClientBlobCache();
+
+        for (long blobId : packet.getAcks()) {
+            blobCache.removeBlob(blobId);
+        }
+
+        if (packet.getNaks().isEmpty()) {
+            return;
+        }
+
+        ClientCacheMissResponsePacket missResponsePacket = new ClientCacheMissResponsePacket();
+        for (long blobId : packet.getNaks()) {
+            byte[] blob = blobCache.removeBlob(blobId);
+            if (blob != null) {
+                missResponsePacket.getBlobs().put(blobId, blob);
+            } else {
+                session.getConnector().getLogger().debug("Client requested unknown chunk blob " + blobId);
+            }
+        }
+
+        if (!missResponsePacket.getBlobs().isEmpty()) {
+            session.sendUpstreamPacket(missResponsePacket);
+        }
+    }
+}
@@ -37,7 +37,6 @@ import org.geysermc.connector.network.translators.collision.translators.OtherCol
 import org.geysermc.connector.network.translators.collision.translators.SolidCollision;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.utils.FileUtils;
-import org.reflections.Reflections;
 
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
@@ -57,8 +56,7 @@ public class CollisionTranslator {
 
         Map<Class<?>, CollisionRemapper> annotationMap = new HashMap<>();
 
-        Reflections ref = GeyserConnector.getInstance().useXmlReflections() ? FileUtils.getReflections("org.geysermc.connector.network.translators.collision.translators") : new Reflections("org.geysermc.connector.network.translators.collision.translators");
-        for (Class<?> clazz : ref.getTypesAnnotatedWith(CollisionRemapper.class)) {
+        for (Class<?> clazz : FileUtils.getGeneratedClassesForType(CollisionRemapper.class)) {
             GeyserConnector.getInstance().getLogger().debug("Found annotated collision translator: " + clazz.getCanonicalName());
 
             collisionTypes.add(clazz);
@@ -35,6 +35,7 @@ import com.nukkitx.protocol.bedrock.packet.UpdateBlockPacket;
 import org.geysermc.connector.inventory.Inventory;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+import org.geysermc.connector.utils.ChunkUtils;
 
 public class DoubleChestInventoryTranslator extends ChestInventoryTranslator {
     private final int blockId;
@@ -49,6 +50,9 @@ public class DoubleChestInventoryTranslator extends ChestInventoryTranslator {
     public void prepareInventory(GeyserSession session, Inventory inventory) {
         Vector3i position = session.getPlayerEntity().getPosition().toInt().add(Vector3i.UP);
         Vector3i pairPosition = position.add(Vector3i.UNIT_X);
+        // Don't let older block updates or chunks that are still waiting to be sent replace the fake chest
+        ChunkUtils.flushPendingBlock(session, position);
+        ChunkUtils.flushPendingBlock(session, pairPosition);
 
         UpdateBlockPacket blockPacket = new UpdateBlockPacket();
         blockPacket.setDataLayer(0);
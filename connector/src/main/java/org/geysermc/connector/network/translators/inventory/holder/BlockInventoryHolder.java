@@ -37,6 +37,7 @@ import org.geysermc.connector.inventory.Inventory;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.inventory.InventoryTranslator;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+import org.geysermc.connector.utils.ChunkUtils;
 
 @AllArgsConstructor
 public class BlockInventoryHolder extends InventoryHolder {
@@ -47,6 +48,8 @@ public class BlockInventoryHolder extends InventoryHolder {
     public void prepareInventory(InventoryTranslator translator, GeyserSession session, Inventory inventory) {
         Vector3i position = session.getPlayerEntity().getPosition().toInt();
         position = position.add(Vector3i.UP);
+        // Don't let an older block update or chunk that is still waiting to be sent replace the fake block
+        ChunkUtils.flushPendingBlock(session, position);
         UpdateBlockPacket blockPacket = new UpdateBlockPacket();
         blockPacket.setDataLayer(0);
         blockPacket.setBlockPosition(position);
@@ -207,10 +207,13 @@ public class JavaEntityStatusTranslator extends PacketTranslator<ServerEntitySta
         for (GeyserSession otherSession : session.getConnector().getPlayers()) {
             if (otherSession != session) {
                 if (!otherSession.isClosed() && session.getUpstream().isInitialized()) {
-                    Entity otherEntity = otherSession.getEntityCache().getEntityByJavaId(javaId);
-                    if (otherEntity != null) {
-                        otherSession.sendUpstreamPacket(session.getAdventureSettings(otherEntity.getGeyserId()));
-                    }
+                    // The other session's entity cache may only be read on its own event loop
+                    otherSession.getEventLoop().execute(() -> {
+                        Entity otherEntity = otherSession.isClosed() ? null : otherSession.getEntityCache().getEntityByJavaId(javaId);
+                        if (otherEntity != null) {
+                            otherSession.sendUpstreamPacket(session.getAdventureSettings(otherEntity.getGeyserId()));
+                        }
+                    });
                 }
             }
         }
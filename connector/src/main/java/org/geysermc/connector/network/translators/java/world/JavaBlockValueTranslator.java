@@ -37,6 +37,7 @@ import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
 import org.geysermc.connector.network.translators.world.block.entity.NoteblockBlockEntityTranslator;
+import org.geysermc.connector.utils.ChunkUtils;
 
 import java.util.concurrent.TimeUnit;
 
@@ -46,9 +47,12 @@ public class JavaBlockValueTranslator extends PacketTranslator<ServerBlockValueP
 
     @Override
     public void translate(ServerBlockValuePacket packet, GeyserSession session) {
+        Vector3i blockPosition = Vector3i.from(packet.getPosition().getX(), packet.getPosition().getY(), packet.getPosition().getZ());
+        // Block events are ignored by the client if the block isn't there yet
+        ChunkUtils.flushPendingBlock(session, blockPosition);
+
         BlockEventPacket blockEventPacket = new BlockEventPacket();
-        blockEventPacket.setBlockPosition(Vector3i.from(packet.getPosition().getX(),
-                packet.getPosition().getY(), packet.getPosition().getZ()));
+        blockEventPacket.setBlockPosition(blockPosition);
         if (packet.getValue() instanceof ChestValue) {
             ChestValue value = (ChestValue) packet.getValue() ;
             blockEventPacket.setEventType(1);
@@ -64,11 +68,10 @@ public class JavaBlockValueTranslator extends PacketTranslator<ServerBlockValueP
 
             // Unlike everything else, pistons need a block entity packet to convey motion
             // TODO: Doesn't register on chunk load; needs to be interacted with first
-            Vector3i position = Vector3i.from(packet.getPosition().getX(), packet.getPosition().getY(), packet.getPosition().getZ());
             if (type == PistonValueType.PUSHING) {
-                extendPiston(session, position, 0.0f, 0.0f);
+                extendPiston(session, blockPosition, 0.0f, 0.0f);
             } else {
-                retractPiston(session, position, 1.0f, 1.0f);
+                retractPiston(session, blockPosition, 1.0f, 1.0f);
             }
         } else if (packet.getValue() instanceof MobSpawnerValue) {
             blockEventPacket.setEventType(1);
@@ -127,7 +130,7 @@ public class JavaBlockValueTranslator extends PacketTranslator<ServerBlockValueP
         blockEntityDataPacket.setData(buildPistonTag(position, progress, lastProgress, state));
         session.sendUpstreamPacket(blockEntityDataPacket);
         if (lastProgress != 1.0f) {
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.schedule(() ->
                             extendPiston(session, position, (progress >= 1.0f) ? 1.0f : progress + 0.5f, progress),
                     20, TimeUnit.MILLISECONDS);
         }
@@ -147,7 +150,7 @@ public class JavaBlockValueTranslator extends PacketTranslator<ServerBlockValueP
         blockEntityDataPacket.setData(buildPistonTag(position, progress, lastProgress, state));
         session.sendUpstreamPacket(blockEntityDataPacket);
         if (lastProgress != 0.0f) {
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.schedule(() ->
                             retractPiston(session, position, (progress <= 0.0f) ? 0.0f : progress - 0.5f, progress),
                     20, TimeUnit.MILLISECONDS);
         }
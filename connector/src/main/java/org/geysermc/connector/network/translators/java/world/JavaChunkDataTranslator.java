@@ -35,12 +35,14 @@ import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.session.cache.ClientBlobCache;
 import org.geysermc.connector.network.translators.BiomeTranslator;
 import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
-import org.geysermc.connector.network.translators.world.chunk.ChunkSection;
+import org.geysermc.connector.network.translators.world.chunk.NetworkChunkSection;
 import org.geysermc.connector.utils.ChunkUtils;
 
 @Translator(packet = ServerChunkDataPacket.class)
@@ -66,72 +68,105 @@ public class JavaChunkDataTranslator extends PacketTranslator<ServerChunkDataPac
             return;
         }
 
-        // Merge received column with cache on network thread
+        // Merge received column with cache
         Column mergedColumn = session.getChunkCache().addToCache(packet.getColumn());
-        if (mergedColumn == null) { // There were no changes?!?
+        if (mergedColumn == null) { // There were no changes, or the column isn't cached anymore
             return;
         }
+        // The translated chunk will already contain any block updates still waiting to be sent
+        session.getBlockUpdateBuffer().removeChunk(packet.getColumn().getX(), packet.getColumn().getZ());
 
         boolean isNonFullChunk = packet.getColumn().getBiomeData() == null;
 
-        GeyserConnector.getInstance().getGeneralThreadPool().execute(() -> {
-            try {
-                ChunkUtils.ChunkData chunkData = ChunkUtils.translateToBedrock(session, mergedColumn, isNonFullChunk);
-                ChunkSection[] sections = chunkData.getSections();
+        try {
+            ChunkUtils.ChunkData chunkData = ChunkUtils.translateToBedrock(session, mergedColumn, isNonFullChunk);
+            NetworkChunkSection[] sections = chunkData.getSections();
+
+            // Find highest section
+            int sectionCount = sections.length - 1;
+            while (sectionCount >= 0 && sections[sectionCount] == null) {
+                sectionCount--;
+            }
+            sectionCount++;
 
-                // Find highest section
-                int sectionCount = sections.length - 1;
-                while (sectionCount >= 0 && sections[sectionCount] == null) {
-                    sectionCount--;
+            ClientBlobCache blobCache = session.getClientBlobCache();
+            // One blob per section, and one for the biomes
+            boolean cachingEnabled = blobCache.isSupported() && blobCache.hasRoomFor(sectionCount + 1);
+            LevelChunkPacket levelChunkPacket = new LevelChunkPacket();
+
+            // Encode tile entities first, as their size isn't known ahead of time
+            ByteBuf blockEntityBuf = ByteBufAllocator.DEFAULT.buffer(chunkData.getBlockEntities().length * 64); // Conservative estimate of 64 bytes per tile entity
+            byte[] payload;
+            try {
+                NBTOutputStream nbtStream = NbtUtils.createNetworkWriter(new ByteBufOutputStream(blockEntityBuf));
+                for (NbtMap blockEntity : chunkData.getBlockEntities()) {
+                    nbtStream.writeTag(blockEntity);
                 }
-                sectionCount++;
 
-                // Estimate chunk size
+                // Calculate the exact chunk size, so the payload can be written into its final array without any copying
                 int size = 0;
-                for (int i = 0; i < sectionCount; i++) {
-                    ChunkSection section = sections[i];
-                    size += (section != null ? section : ChunkUtils.EMPTY_SECTION).estimateNetworkSize();
+                if (!cachingEnabled) {
+                    for (int i = 0; i < sectionCount; i++) {
+                        NetworkChunkSection section = sections[i];
+                        size += (section != null ? section : ChunkUtils.EMPTY_SECTION).getNetworkSize();
+                    }
+                    size += 256; // Biomes
                 }
-                size += 256; // Biomes
                 size += 1; // Border blocks
                 size += 1; // Extra data length (always 0)
-                size += chunkData.getBlockEntities().length * 64; // Conservative estimate of 64 bytes per tile entity
-
-                // Allocate output buffer
-                ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer(size);
-                byte[] payload;
-                try {
-                    for (int i = 0; i < sectionCount; i++) {
-                        ChunkSection section = sections[i];
-                        (section != null ? section : ChunkUtils.EMPTY_SECTION).writeToNetwork(byteBuf);
-                    }
+                size += blockEntityBuf.readableBytes();
 
-                    byteBuf.writeBytes(BiomeTranslator.toBedrockBiome(mergedColumn.getBiomeData())); // Biomes - 256 bytes
-                    byteBuf.writeByte(0); // Border blocks - Edu edition only
-                    VarInts.writeUnsignedInt(byteBuf, 0); // extra data length, 0 for now
+                // The protocol library only accepts a byte[], so write straight into one
+                ByteBuf byteBuf = Unpooled.wrappedBuffer(payload = new byte[size]);
+                byteBuf.writerIndex(0);
 
-                    // Encode tile entities into buffer
-                    NBTOutputStream nbtStream = NbtUtils.createNetworkWriter(new ByteBufOutputStream(byteBuf));
-                    for (NbtMap blockEntity : chunkData.getBlockEntities()) {
-                        nbtStream.writeTag(blockEntity);
+                for (int i = 0; i < sectionCount; i++) {
+                    NetworkChunkSection section = sections[i];
+                    if (section == null) {
+                        section = ChunkUtils.EMPTY_SECTION;
                     }
 
-                    // Copy data into byte[], because the protocol lib really likes things that are s l o w
-                    byteBuf.readBytes(payload = new byte[byteBuf.readableBytes()]);
-                } finally {
-                    byteBuf.release(); // Release buffer to allow buffer pooling to be useful
+                    if (cachingEnabled) {
+                        // Each sub chunk is sent as its own blob that the client can store
+                        levelChunkPacket.getBlobIds().add(blobCache.addBlob(encodeSection(section)));
+                    } else {
+                        section.writeToNetwork(byteBuf);
+                    }
                 }
 
-                LevelChunkPacket levelChunkPacket = new LevelChunkPacket();
-                levelChunkPacket.setSubChunksLength(sectionCount);
-                levelChunkPacket.setCachingEnabled(false);
-                levelChunkPacket.setChunkX(mergedColumn.getX());
-                levelChunkPacket.setChunkZ(mergedColumn.getZ());
-                levelChunkPacket.setData(payload);
-                session.sendUpstreamPacket(levelChunkPacket);
-            } catch (Exception ex) {
-                ex.printStackTrace();
+                byte[] biomes = BiomeTranslator.toBedrockBiome(mergedColumn.getBiomeData()); // Biomes - 256 bytes
+                if (cachingEnabled) {
+                    // Biomes are always the last blob
+                    levelChunkPacket.getBlobIds().add(blobCache.addBlob(biomes));
+                } else {
+                    byteBuf.writeBytes(biomes);
+                }
+                byteBuf.writeByte(0); // Border blocks - Edu edition only
+                VarInts.writeUnsignedInt(byteBuf, 0); // extra data length, 0 for now
+                byteBuf.writeBytes(blockEntityBuf);
+            } finally {
+                blockEntityBuf.release(); // Release buffer to allow buffer pooling to be useful
             }
-        });
+
+            levelChunkPacket.setSubChunksLength(sectionCount);
+            levelChunkPacket.setCachingEnabled(cachingEnabled);
+            levelChunkPacket.setChunkX(mergedColumn.getX());
+            levelChunkPacket.setChunkZ(mergedColumn.getZ());
+            levelChunkPacket.setData(payload);
+            session.getChunkSendScheduler().enqueue(levelChunkPacket);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Serialize a sub chunk into its own array, to be used as a blob.
+     */
+    private static byte[] encodeSection(NetworkChunkSection section) {
+        byte[] blob = new byte[section.getNetworkSize()];
+        ByteBuf byteBuf = Unpooled.wrappedBuffer(blob);
+        byteBuf.writerIndex(0);
+        section.writeToNetwork(byteBuf);
+        return blob;
     }
 }
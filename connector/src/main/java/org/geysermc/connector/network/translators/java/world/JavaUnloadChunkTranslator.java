@@ -39,6 +39,7 @@ public class JavaUnloadChunkTranslator extends PacketTranslator<ServerUnloadChun
     @Override
     public void translate(ServerUnloadChunkPacket packet, GeyserSession session) {
         session.getChunkCache().removeChunk(packet.getX(), packet.getZ());
+        session.getChunkSendScheduler().removeChunk(packet.getX(), packet.getZ());
 
         //Checks if a skull is in an unloaded chunk then removes it
         Iterator<Vector3i> iterator = session.getSkullCache().keySet().iterator();
@@ -25,9 +25,7 @@
 
 package org.geysermc.connector.network.translators.sound;
 
-import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.utils.FileUtils;
-import org.reflections.Reflections;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -40,8 +38,7 @@ public class SoundHandlerRegistry {
     static final Map<SoundHandler, SoundInteractionHandler<?>> INTERACTION_HANDLERS = new HashMap<>();
 
     static {
-        Reflections ref = GeyserConnector.getInstance().useXmlReflections() ? FileUtils.getReflections("org.geysermc.connector.network.translators.sound") : new Reflections("org.geysermc.connector.network.translators.sound");
-        for (Class<?> clazz : ref.getTypesAnnotatedWith(SoundHandler.class)) {
+        for (Class<?> clazz : FileUtils.getGeneratedClassesForType(SoundHandler.class)) {
             try {
                 SoundInteractionHandler<?> interactionHandler = (SoundInteractionHandler<?>) clazz.newInstance();
                 SoundHandler annotation = clazz.getAnnotation(SoundHandler.class);
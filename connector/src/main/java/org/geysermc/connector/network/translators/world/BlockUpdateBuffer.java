@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world;
+
+import com.nukkitx.math.vector.Vector3i;
+import com.nukkitx.protocol.bedrock.packet.UpdateBlockPacket;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.AllArgsConstructor;
+import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+
+/**
+ * Buffers the block updates of a session for the rest of the tick. If a block changes multiple times in one tick, only
+ * the final state is sent, and the water layer is only updated when the block became or stopped being waterlogged.
+ */
+public class BlockUpdateBuffer {
+
+    private final GeyserSession session;
+
+    private final Long2ObjectMap<PendingBlockUpdate> pendingUpdates = new Long2ObjectOpenHashMap<>();
+
+    public BlockUpdateBuffer(GeyserSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Queue a block update to be sent at the end of the tick.
+     *
+     * @param position the position of the block
+     * @param blockState the new Java block state
+     * @param previousBlockState the Java block state the client currently has, or -1 if it isn't known
+     */
+    public void update(Vector3i position, int blockState, int previousBlockState) {
+        long key = positionToLong(position.getX(), position.getY(), position.getZ());
+        synchronized (pendingUpdates) {
+            PendingBlockUpdate pendingUpdate = pendingUpdates.get(key);
+            if (pendingUpdate != null) {
+                // The client hasn't seen the previous state yet, so keep the state from before it
+                pendingUpdate.blockState = blockState;
+            } else {
+                pendingUpdates.put(key, new PendingBlockUpdate(position, blockState, previousBlockState));
+            }
+        }
+    }
+
+    /**
+     * Send the pending update for this block immediately, if there is one. Used when other packets sent for this block
+     * depend on the client already having the new state.
+     */
+    public void flush(Vector3i position) {
+        PendingBlockUpdate pendingUpdate;
+        synchronized (pendingUpdates) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            pendingUpdate = pendingUpdates.remove(positionToLong(position.getX(), position.getY(), position.getZ()));
+        }
+
+        if (pendingUpdate != null) {
+            send(pendingUpdate);
+        }
+    }
+
+    /**
+     * Drop the pending updates in a chunk, as the server has sent the whole chunk again
+     */
+    public void removeChunk(int chunkX, int chunkZ) {
+        synchronized (pendingUpdates) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            pendingUpdates.values().removeIf(pendingUpdate -> pendingUpdate.position.getX() >> 4 == chunkX
+                    && pendingUpdate.position.getZ() >> 4 == chunkZ);
+        }
+    }
+
+    public void clear() {
+        synchronized (pendingUpdates) {
+            pendingUpdates.clear();
+        }
+    }
+
+    /**
+     * Called every tick - sends every pending block update
+     */
+    public void tick() {
+        PendingBlockUpdate[] updates;
+        synchronized (pendingUpdates) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            updates = pendingUpdates.values().toArray(new PendingBlockUpdate[0]);
+            pendingUpdates.clear();
+        }
+
+        for (PendingBlockUpdate update : updates) {
+            send(update);
+        }
+    }
+
+    private void send(PendingBlockUpdate update) {
+        UpdateBlockPacket updateBlockPacket = new UpdateBlockPacket();
+        updateBlockPacket.setDataLayer(0);
+        updateBlockPacket.setBlockPosition(update.position);
+        updateBlockPacket.setRuntimeId(BlockTranslator.getBedrockBlockId(update.blockState));
+        updateBlockPacket.getFlags().add(UpdateBlockPacket.Flag.NEIGHBORS);
+        updateBlockPacket.getFlags().add(UpdateBlockPacket.Flag.NETWORK);
+        session.sendUpstreamPacket(updateBlockPacket);
+
+        boolean waterlogged = BlockTranslator.isWaterlogged(update.blockState);
+        if (update.previousBlockState != -1 && BlockTranslator.isWaterlogged(update.previousBlockState) == waterlogged) {
+            // The water layer is already correct
+            return;
+        }
+
+        UpdateBlockPacket waterPacket = new UpdateBlockPacket();
+        waterPacket.setDataLayer(1);
+        waterPacket.setBlockPosition(update.position);
+        if (waterlogged) {
+            waterPacket.setRuntimeId(BlockTranslator.BEDROCK_WATER_ID);
+        } else {
+            waterPacket.setRuntimeId(BlockTranslator.BEDROCK_AIR_ID);
+        }
+        session.sendUpstreamPacket(waterPacket);
+    }
+
+    /**
+     * Packs a block position into a long, using 26 bits for X and Z and 12 bits for Y
+     */
+    private static long positionToLong(int x, int y, int z) {
+        return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    @AllArgsConstructor
+    private static class PendingBlockUpdate {
+        private final Vector3i position;
+        private int blockState;
+        /**
+         * The block state before this tick's updates, or -1 if it isn't known
+         */
+        private final int previousBlockState;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world;
+
+import com.nukkitx.math.vector.Vector3f;
+import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.utils.MathUtils;
+
+import java.util.Arrays;
+
+/**
+ * Queues translated chunks for a session and sends them nearest-first, a limited amount per tick.
+ * This gets the area around the player loaded first after joins and dimension changes, and stops
+ * a teleporting player from flooding their own connection.
+ */
+public class ChunkSendScheduler {
+
+    private final GeyserSession session;
+
+    /**
+     * The maximum amount of chunks to send per tick, or 0 to send chunks as soon as they're translated
+     */
+    private final int chunksPerTick;
+
+    private final Long2ObjectMap<LevelChunkPacket> pendingChunks = new Long2ObjectOpenHashMap<>();
+
+    public ChunkSendScheduler(GeyserSession session) {
+        this.session = session;
+        this.chunksPerTick = Math.max(0, session.getConnector().getConfig().getMaxChunksPerTick());
+    }
+
+    /**
+     * Queue a chunk to be sent. If an older version of this chunk is still queued, it is replaced.
+     *
+     * @param packet the translated chunk
+     */
+    public void enqueue(LevelChunkPacket packet) {
+        if (chunksPerTick == 0) {
+            session.sendUpstreamPacket(packet);
+            return;
+        }
+
+        synchronized (pendingChunks) {
+            pendingChunks.put(MathUtils.chunkPositionToLong(packet.getChunkX(), packet.getChunkZ()), packet);
+        }
+    }
+
+    /**
+     * Send a queued chunk immediately, if it is queued. Used before sending block updates, block entity data, block
+     * events or block-bound entities in this chunk, so a chunk sent later cannot overwrite them.
+     */
+    public void flush(int chunkX, int chunkZ) {
+        LevelChunkPacket packet;
+        synchronized (pendingChunks) {
+            if (pendingChunks.isEmpty()) {
+                return;
+            }
+            packet = pendingChunks.remove(MathUtils.chunkPositionToLong(chunkX, chunkZ));
+        }
+
+        if (packet != null) {
+            session.sendUpstreamPacket(packet);
+        }
+    }
+
+    /**
+     * Drop a queued chunk, as it has been unloaded by the server before we got to sending it
+     */
+    public void removeChunk(int chunkX, int chunkZ) {
+        synchronized (pendingChunks) {
+            pendingChunks.remove(MathUtils.chunkPositionToLong(chunkX, chunkZ));
+        }
+    }
+
+    public void clear() {
+        synchronized (pendingChunks) {
+            pendingChunks.clear();
+        }
+    }
+
+    /**
+     * Called every tick - sends the closest queued chunks to the player, preferring the chunks in front of them
+     */
+    public void tick() {
+        LevelChunkPacket[] packets;
+        synchronized (pendingChunks) {
+            if (pendingChunks.isEmpty()) {
+                return;
+            }
+            packets = pendingChunks.values().toArray(new LevelChunkPacket[0]);
+        }
+
+        Vector3f position = session.getPlayerEntity().getPosition();
+        float yaw = session.getPlayerEntity().getRotation().getX();
+        double playerChunkX = position.getX() / 16;
+        double playerChunkZ = position.getZ() / 16;
+        // Java yaw - 0 is south (+Z) and 90 is west (-X)
+        double facingX = -Math.sin(Math.toRadians(yaw));
+        double facingZ = Math.cos(Math.toRadians(yaw));
+
+        long[] sortKeys = new long[packets.length];
+        for (int i = 0; i < packets.length; i++) {
+            double deltaX = packets[i].getChunkX() + 0.5 - playerChunkX;
+            double deltaZ = packets[i].getChunkZ() + 0.5 - playerChunkZ;
+            double distanceSquared = deltaX * deltaX + deltaZ * deltaZ;
+            double score = distanceSquared;
+            if (distanceSquared > 1) {
+                // Chunks directly in front of the player count as normal distance, chunks behind them as 1.5 times as far
+                double facing = (deltaX * facingX + deltaZ * facingZ) / Math.sqrt(distanceSquared);
+                score *= 1.25 - 0.25 * facing;
+            }
+            // Pack the score and the index together so a primitive sort can be used
+            sortKeys[i] = ((long) Math.min(score * 16, Integer.MAX_VALUE) << 32) | i;
+        }
+        Arrays.sort(sortKeys);
+
+        int count = Math.min(chunksPerTick, packets.length);
+        for (int i = 0; i < count; i++) {
+            LevelChunkPacket packet = packets[(int) sortKeys[i]];
+            boolean stillQueued;
+            synchronized (pendingChunks) {
+                // The chunk may have been unloaded, replaced or flushed since we copied the queue
+                stillQueued = pendingChunks.remove(MathUtils.chunkPositionToLong(packet.getChunkX(), packet.getChunkZ()), packet);
+            }
+            if (stillQueued) {
+                session.sendUpstreamPacket(packet);
+            }
+        }
+    }
+}
@@ -36,7 +36,6 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.utils.FileUtils;
-import org.reflections.Reflections;
 
 import java.io.DataInputStream;
 import java.io.InputStream;
@@ -133,9 +132,6 @@ public class BlockTranslator {
             throw new AssertionError("Unable to load Java block mappings", e);
         }
 
-        Reflections ref = GeyserConnector.getInstance().useXmlReflections() ? FileUtils.getReflections("org.geysermc.connector.network.translators.world.block.entity")
-                : new Reflections("org.geysermc.connector.network.translators.world.block.entity");
-
         int waterRuntimeId = -1;
         int javaRuntimeId = -1;
         int airRuntimeId = -1;
@@ -36,7 +36,6 @@ import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.utils.BlockEntityUtils;
 import org.geysermc.connector.utils.FileUtils;
 import org.geysermc.connector.utils.LanguageUtils;
-import org.reflections.Reflections;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -74,8 +73,7 @@ public abstract class BlockEntityTranslator {
     }
 
     static {
-        Reflections ref = GeyserConnector.getInstance().useXmlReflections() ? FileUtils.getReflections("org.geysermc.connector.network.translators.world.block.entity") : new Reflections("org.geysermc.connector.network.translators.world.block.entity");
-        for (Class<?> clazz : ref.getTypesAnnotatedWith(BlockEntity.class)) {
+        for (Class<?> clazz : FileUtils.getGeneratedClassesForType(BlockEntity.class)) {
             GeyserConnector.getInstance().getLogger().debug("Found annotated block entity: " + clazz.getCanonicalName());
 
             try {
@@ -85,7 +83,7 @@ public abstract class BlockEntityTranslator {
             }
         }
         boolean cacheChunks = GeyserConnector.getInstance().getConfig().isCacheChunks();
-        for (Class<?> clazz : ref.getSubTypesOf(RequiresBlockState.class)) {
+        for (Class<?> clazz : FileUtils.getGeneratedClassesForType(RequiresBlockState.class)) {
             GeyserConnector.getInstance().getLogger().debug("Found block entity that requires block state: " + clazz.getCanonicalName());
 
             try {
@@ -37,6 +37,7 @@ import org.geysermc.connector.entity.player.SkullPlayerEntity;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.world.block.BlockStateValues;
 import org.geysermc.connector.skin.SkinManager;
+import org.geysermc.connector.utils.ChunkUtils;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -132,7 +133,11 @@ public class SkullBlockEntityTranslator extends BlockEntityTranslator implements
         Vector3f entityRotation = Vector3f.from(rotation, 0, rotation);
         long geyserId = session.getEntityCache().getNextEntityId().incrementAndGet();
 
-        getProfile(tag).whenComplete((gameProfile, throwable) -> {
+        // The profile may be completed on another thread, but session state may only be touched on the session's event loop
+        getProfile(tag).whenCompleteAsync((gameProfile, throwable) -> {
+            if (session.isClosed()) {
+                return;
+            }
             if (gameProfile == null) {
                 session.getConnector().getLogger().debug("Custom skull with invalid SkullOwner tag: " + blockPosition.toString() + " " + tag.toString());
                 return;
@@ -157,14 +162,16 @@ public class SkullBlockEntityTranslator extends BlockEntityTranslator implements
 
             // Only send to session if we are initialized, otherwise it will happen then.
             if (session.getUpstream().isInitialized()) {
+                // The skull would vanish if its chunk was sent after it
+                ChunkUtils.flushPendingBlock(session, blockPosition);
                 player.spawnEntity(session);
 
-                SkinManager.refreshPlayerSkull(player, session, (() -> session.getConnector().getGeneralThreadPool().schedule(() -> {
+                SkinManager.refreshPlayerSkull(player, session, (() -> session.schedule(() -> {
                     // Delay to minimize split-second "player" pop-in
                     player.getMetadata().getFlags().setFlag(EntityFlag.INVISIBLE, false);
                     player.updateBedrockMetadata(session);
                 }, 250, TimeUnit.MILLISECONDS)));
             }
-        });
+        }, session.getEventLoop());
     }
 }
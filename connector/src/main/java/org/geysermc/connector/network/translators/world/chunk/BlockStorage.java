@@ -27,8 +27,10 @@ package org.geysermc.connector.network.translators.world.chunk;
 
 import com.nukkitx.network.VarInts;
 import io.netty.buffer.ByteBuf;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
@@ -44,6 +46,12 @@ public class BlockStorage {
     private final IntList palette;
     private BitArray bitArray;
 
+    /**
+     * Reverse index of the palette (runtime ID to palette ID). Only built once a block is looked up.
+     */
+    @Getter(AccessLevel.NONE)
+    private Int2IntOpenHashMap paletteIndex;
+
     public BlockStorage() {
         this(BitArrayVersion.V2);
     }
@@ -59,6 +67,55 @@ public class BlockStorage {
         this.bitArray = bitArray;
     }
 
+    /**
+     * Creates a block storage from a full section of Bedrock runtime IDs. The palette is collected first,
+     * so the bit array is sized once and never has to be resized.
+     *
+     * @param runtimeIds the runtime IDs of all {@link #SIZE} blocks, in XZY order
+     * @return the new block storage
+     */
+    public static BlockStorage fromRuntimeIds(int[] runtimeIds) {
+        if (runtimeIds.length != SIZE) {
+            throw new IllegalArgumentException("Expected " + SIZE + " runtime IDs, got " + runtimeIds.length);
+        }
+
+        IntList palette = new IntArrayList(16);
+        palette.add(BlockTranslator.BEDROCK_AIR_ID); // See the constructor above
+        Int2IntOpenHashMap paletteIndex = createIndex(palette);
+
+        int[] paletteIds = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            int runtimeId = runtimeIds[i];
+            int paletteId = paletteIndex.get(runtimeId);
+            if (paletteId == -1) {
+                paletteId = palette.size();
+                palette.add(runtimeId);
+                paletteIndex.put(runtimeId, paletteId);
+            }
+            paletteIds[i] = paletteId;
+        }
+
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(palette.size() - 1));
+        BitArray bitArray = BitArrayVersion.forBitsCeil(bits).createArray(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            bitArray.set(i, paletteIds[i]);
+        }
+
+        BlockStorage storage = new BlockStorage(bitArray, palette);
+        storage.paletteIndex = paletteIndex;
+        return storage;
+    }
+
+    private static Int2IntOpenHashMap createIndex(IntList palette) {
+        Int2IntOpenHashMap paletteIndex = new Int2IntOpenHashMap(Math.max(16, palette.size()));
+        paletteIndex.defaultReturnValue(-1);
+        // Iterate backwards so the first occurrence wins, matching IntList#indexOf
+        for (int i = palette.size() - 1; i >= 0; i--) {
+            paletteIndex.put(palette.getInt(i), i);
+        }
+        return paletteIndex;
+    }
+
     private static int getPaletteHeader(BitArrayVersion version, boolean runtime) {
         return (version.getId() << 1) | (runtime ? 1 : 0);
     }
@@ -97,6 +154,29 @@ public class BlockStorage {
         return size;
     }
 
+    /**
+     * @return the exact amount of bytes that {@link #writeToNetwork(ByteBuf)} will write
+     */
+    public int getNetworkSize() {
+        int size = 1; // Palette header
+        size += this.bitArray.getWords().length * 4;
+        size += varIntSize(this.palette.size());
+        for (int i = 0; i < this.palette.size(); i++) {
+            size += varIntSize(this.palette.getInt(i));
+        }
+        return size;
+    }
+
+    private static int varIntSize(int value) {
+        int zigZag = (value << 1) ^ (value >> 31); // VarInts.writeInt encodes with ZigZag
+        int size = 1;
+        while ((zigZag & ~0x7F) != 0) {
+            zigZag >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
     private void onResize(BitArrayVersion version) {
         BitArray newBitArray = version.createArray(SIZE);
 
@@ -107,13 +187,18 @@ public class BlockStorage {
     }
 
     private int idFor(int runtimeId) {
-        int index = this.palette.indexOf(runtimeId);
+        if (this.paletteIndex == null) {
+            this.paletteIndex = createIndex(this.palette);
+        }
+
+        int index = this.paletteIndex.get(runtimeId);
         if (index != -1) {
             return index;
         }
 
         index = this.palette.size();
         this.palette.add(runtimeId);
+        this.paletteIndex.put(runtimeId, index);
         BitArrayVersion version = this.bitArray.getVersion();
         if (index > version.getMaxEntryValue()) {
             BitArrayVersion next = version.next();
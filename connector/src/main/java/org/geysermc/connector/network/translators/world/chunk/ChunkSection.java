@@ -28,7 +28,7 @@ package org.geysermc.connector.network.translators.world.chunk;
 import com.nukkitx.network.util.Preconditions;
 import io.netty.buffer.ByteBuf;
 
-public class ChunkSection {
+public class ChunkSection implements NetworkChunkSection {
 
     private static final int CHUNK_SECTION_VERSION = 8;
 
@@ -54,6 +54,7 @@ public class ChunkSection {
         this.storage[layer].setFullBlock(blockPosition(x, y, z), fullBlock);
     }
 
+    @Override
     public void writeToNetwork(ByteBuf buffer) {
         buffer.writeByte(CHUNK_SECTION_VERSION);
         buffer.writeByte(this.storage.length);
@@ -70,6 +71,15 @@ public class ChunkSection {
         return size;
     }
 
+    @Override
+    public int getNetworkSize() {
+        int size = 2; // Version + storage count
+        for (BlockStorage blockStorage : this.storage) {
+            size += blockStorage.getNetworkSize();
+        }
+        return size;
+    }
+
     public BlockStorage[] getBlockStorageArray() {
         return storage;
     }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.GlobalPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.Palette;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.geysermc.connector.GeyserConnector;
+
+import java.util.Arrays;
+
+/**
+ * A proxy-wide cache of translated chunk sections, keyed by the contents of the Java section.
+ * Players around the same area (spawn, lobbies) receive identical sections, so these only need to be translated once.
+ */
+public class ChunkSectionCache {
+
+    private static final int[] GLOBAL_PALETTE = new int[0];
+
+    private static final Cache<SectionKey, EncodedChunkSection> CACHE;
+
+    static {
+        long maxSize = GeyserConnector.getInstance().getConfig().getChunkSectionCacheSize() * 1024L * 1024L;
+        if (maxSize > 0) {
+            CACHE = CacheBuilder.newBuilder()
+                    .maximumWeight(maxSize)
+                    .weigher((SectionKey key, EncodedChunkSection section) -> key.estimateSize() + section.getNetworkSize())
+                    .build();
+        } else {
+            CACHE = null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return CACHE != null;
+    }
+
+    /**
+     * Creates a key from the current contents of a Java chunk section. The key refers to the data of the section
+     * itself, so it must only be used for lookups until it is stored with {@link #put(SectionKey, NetworkChunkSection)},
+     * which copies it.
+     *
+     * @param javaSection the Java section to create a key for
+     * @return the key for this section
+     */
+    public static SectionKey createKey(Chunk javaSection) {
+        Palette palette = javaSection.getPalette();
+        BitStorage storage = javaSection.getStorage();
+
+        int[] states;
+        if (palette instanceof GlobalPalette) {
+            states = GLOBAL_PALETTE;
+        } else {
+            states = new int[palette.size()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = palette.idToState(i);
+            }
+        }
+
+        long[] data = storage.getData();
+        return new SectionKey(storage.getBitsPerEntry(), states, data, computeHash(storage.getBitsPerEntry(), states, data));
+    }
+
+    /**
+     * @param key the key of the Java section
+     * @return the translated section, or null if it has not been cached
+     */
+    public static EncodedChunkSection get(SectionKey key) {
+        return CACHE.getIfPresent(key);
+    }
+
+    /**
+     * Stores a translated section. The section must not depend on anything besides the contents of the
+     * Java section - for example, sections with Bedrock-only block entities should not be cached as those depend on position.
+     *
+     * @param key the key of the Java section
+     * @param section the translated section
+     * @return the section in its encoded form, which should be used in place of the given section
+     */
+    public static EncodedChunkSection put(SectionKey key, NetworkChunkSection section) {
+        byte[] data = new byte[section.getNetworkSize()];
+        ByteBuf byteBuf = Unpooled.wrappedBuffer(data);
+        byteBuf.writerIndex(0);
+        section.writeToNetwork(byteBuf);
+
+        EncodedChunkSection encodedSection = new EncodedChunkSection(data);
+        // The Java section may be modified afterwards by the chunk cache, so the data is only copied now
+        CACHE.put(key.copy(), encodedSection);
+        return encodedSection;
+    }
+
+    private static int computeHash(int bitsPerEntry, int[] palette, long[] data) {
+        int hash = bitsPerEntry;
+        hash = 31 * hash + Arrays.hashCode(palette);
+        hash = 31 * hash + Arrays.hashCode(data);
+        return hash;
+    }
+
+    public static final class SectionKey {
+        private final int bitsPerEntry;
+        private final int[] palette;
+        private final long[] data;
+        private final int hashCode;
+
+        private SectionKey(int bitsPerEntry, int[] palette, long[] data, int hashCode) {
+            this.bitsPerEntry = bitsPerEntry;
+            this.palette = palette;
+            this.data = data;
+            this.hashCode = hashCode;
+        }
+
+        private SectionKey copy() {
+            return new SectionKey(bitsPerEntry, palette, data.clone(), hashCode);
+        }
+
+        private int estimateSize() {
+            return 32 + (palette.length * 4) + (data.length * 8);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SectionKey)) {
+                return false;
+            }
+            SectionKey other = (SectionKey) o;
+            return hashCode == other.hashCode && bitsPerEntry == other.bitsPerEntry &&
+                    Arrays.equals(palette, other.palette) && Arrays.equals(data, other.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk.bitarray;
+
+import java.util.BitSet;
+
+/**
+ * Converts Java Edition chunk section storage into Bedrock Edition bit arrays.
+ * <p>
+ * Java stores entries in YZX order in longs, where entries never span two longs. Bedrock stores entries in XZY order in
+ * ints. Rather than going through {@link BitArray#set(int, int)} for each of the 4096 blocks, each Bedrock word is
+ * assembled in place and written once.
+ */
+public class BitArrayTranscoder {
+
+    private static final int SIZE = 4096;
+
+    /**
+     * Holds the unpacked entries of one section in XZY order while they are packed again. Sections are translated on
+     * several threads at once, so each thread has its own.
+     */
+    private static final ThreadLocal<int[]> UNPACKED = ThreadLocal.withInitial(() -> new int[SIZE]);
+
+    private BitArrayTranscoder() {
+    }
+
+    /**
+     * Copies Java block storage into the given Bedrock bit array, converting the coordinate order from YZX to XZY.
+     * Palette indexes are copied as-is.
+     *
+     * @param javaWords the backing array of the Java storage
+     * @param javaBits the bits per entry of the Java storage
+     * @param bedrockArray the array to write into. Must be able to hold {@code javaBits} bits per entry
+     */
+    public static void transcodeYZXtoXZY(long[] javaWords, int javaBits, BitArray bedrockArray) {
+        BitArrayVersion version = bedrockArray.getVersion();
+        if (bedrockArray.size() != SIZE) {
+            throw new IllegalArgumentException("Bit array must contain a full chunk section");
+        }
+        if (version.bits < javaBits) {
+            throw new IllegalArgumentException("Bit array version " + version + " cannot hold " + javaBits + " bits per entry");
+        }
+
+        int[] words = bedrockArray.getWords();
+        if (javaBits == 4 && version == BitArrayVersion.V4) {
+            transcode4(javaWords, words);
+            return;
+        }
+
+        int[] values = UNPACKED.get();
+        unpackYZXtoXZY(javaWords, javaBits, values);
+        if (version == BitArrayVersion.V5) {
+            pack5(values, words);
+        } else if (version == BitArrayVersion.V6) {
+            pack6(values, words);
+        } else {
+            packGeneric(values, words, version);
+        }
+    }
+
+    /**
+     * Marks every entry of a Bedrock bit array whose palette index is in the given set, reading the array a word at a
+     * time.
+     *
+     * @param bedrockArray the array to read, holding a full chunk section
+     * @param paletteIds the palette indexes to look for
+     * @param mask where the result is written as a bit per entry, 32 entries per int
+     */
+    public static void markPaletteIds(BitArray bedrockArray, BitSet paletteIds, int[] mask) {
+        BitArrayVersion version = bedrockArray.getVersion();
+        int bits = version.bits;
+        int entriesPerWord = version.entriesPerWord;
+        int entryMask = version.maxEntryValue;
+
+        int index = 0;
+        for (int word : bedrockArray.getWords()) {
+            for (int i = 0; i < entriesPerWord && index < SIZE; i++, index++) {
+                if (paletteIds.get(word & entryMask)) {
+                    mask[index >> 5] |= 1 << (index & 0x1F);
+                }
+                word >>>= bits;
+            }
+        }
+    }
+
+    /**
+     * Swaps the X and Y parts of a block index. This goes both ways, from YZX to XZY and back.
+     */
+    private static int swapXY(int index) {
+        return ((index & 0x00F) << 8) | (index & 0x0F0) | (index >> 8);
+    }
+
+    /**
+     * Java: 16 entries per long, so Y and Z select the long and X selects the shift.
+     * Bedrock: 8 entries per word, so every word is one half of a Y column.
+     */
+    private static void transcode4(long[] javaWords, int[] words) {
+        for (int w = 0; w < 512; w++) {
+            int shift = (w >> 5) << 2; // x * 4
+            int base = ((w & 1) << 7) | ((w >> 1) & 0xF); // (y << 4) | z
+            words[w] = (int) ((javaWords[base] >>> shift) & 0xF)
+                    | (int) ((javaWords[base + 16] >>> shift) & 0xF) << 4
+                    | (int) ((javaWords[base + 32] >>> shift) & 0xF) << 8
+                    | (int) ((javaWords[base + 48] >>> shift) & 0xF) << 12
+                    | (int) ((javaWords[base + 64] >>> shift) & 0xF) << 16
+                    | (int) ((javaWords[base + 80] >>> shift) & 0xF) << 20
+                    | (int) ((javaWords[base + 96] >>> shift) & 0xF) << 24
+                    | (int) ((javaWords[base + 112] >>> shift) & 0xF) << 28;
+        }
+    }
+
+    /**
+     * Reads the Java longs in order, shifting each entry out in turn, and stores the entries in XZY order so they can
+     * be packed sequentially.
+     */
+    private static void unpackYZXtoXZY(long[] javaWords, int javaBits, int[] values) {
+        int entriesPerLong = 64 / javaBits;
+        long mask = (1L << javaBits) - 1;
+
+        int yzx = 0;
+        for (int w = 0; yzx < SIZE; w++) {
+            long javaWord = javaWords[w];
+            for (int i = 0; i < entriesPerLong && yzx < SIZE; i++, yzx++) {
+                values[swapXY(yzx)] = (int) (javaWord & mask);
+                javaWord >>>= javaBits;
+            }
+        }
+    }
+
+    /**
+     * Bedrock: 6 entries per word, with the last word only holding 4.
+     */
+    private static void pack5(int[] values, int[] words) {
+        int w = 0;
+        int xzy = 0;
+        for (; xzy + 6 <= SIZE; xzy += 6, w++) {
+            words[w] = values[xzy]
+                    | values[xzy + 1] << 5
+                    | values[xzy + 2] << 10
+                    | values[xzy + 3] << 15
+                    | values[xzy + 4] << 20
+                    | values[xzy + 5] << 25;
+        }
+        words[w] = values[xzy]
+                | values[xzy + 1] << 5
+                | values[xzy + 2] << 10
+                | values[xzy + 3] << 15;
+    }
+
+    /**
+     * Bedrock: 5 entries per word, with the last word only holding 1.
+     */
+    private static void pack6(int[] values, int[] words) {
+        int w = 0;
+        int xzy = 0;
+        for (; xzy + 5 <= SIZE; xzy += 5, w++) {
+            words[w] = values[xzy]
+                    | values[xzy + 1] << 6
+                    | values[xzy + 2] << 12
+                    | values[xzy + 3] << 18
+                    | values[xzy + 4] << 24;
+        }
+        words[w] = values[xzy];
+    }
+
+    private static void packGeneric(int[] values, int[] words, BitArrayVersion version) {
+        int bits = version.bits;
+        int entriesPerWord = version.entriesPerWord;
+
+        int xzy = 0;
+        for (int w = 0; w < words.length; w++) {
+            int word = 0;
+            for (int shift = 0, i = 0; i < entriesPerWord && xzy < SIZE; i++, xzy++, shift += bits) {
+                word |= values[xzy] << shift;
+            }
+            words[w] = word;
+        }
+    }
+}
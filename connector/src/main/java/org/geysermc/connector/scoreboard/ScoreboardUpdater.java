@@ -31,10 +31,12 @@ import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.session.cache.WorldCache;
 import org.geysermc.connector.utils.LanguageUtils;
 
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class ScoreboardUpdater extends Thread {
+/**
+ * Sends the scoreboard in intervals when the server sends too many score packets. Ticked by the session.
+ */
+public class ScoreboardUpdater {
     public static final int FIRST_SCORE_PACKETS_PER_SECOND_THRESHOLD;
     public static final int SECOND_SCORE_PACKETS_PER_SECOND_THRESHOLD = 250;
 
@@ -55,13 +57,11 @@ public class ScoreboardUpdater extends Thread {
     private final AtomicInteger pendingPacketsPerSecond = new AtomicInteger(0);
 
     public ScoreboardUpdater(WorldCache worldCache) {
-        super("Scoreboard Updater");
         this.worldCache = worldCache;
         session = worldCache.getSession();
     }
 
-    @Override
-    public void run() {
+    public void tick() {
         if (!session.isClosed()) {
             long currentTime = System.currentTimeMillis();
 
@@ -100,8 +100,6 @@ public class ScoreboardUpdater extends Thread {
                     }
                 }
             }
-
-            session.getConnector().getGeneralThreadPool().schedule(this, 50, TimeUnit.MILLISECONDS);
         }
     }
 
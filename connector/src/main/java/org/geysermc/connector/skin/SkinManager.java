@@ -128,15 +128,16 @@ public class SkinManager {
         if (!resourcesAvailable(playerSkullProfile)) {
             skullRegistrationInProgress.computeIfAbsent(playerEntity.getUuid(), uuid -> registerSkull(playerEntity).whenCompleteAsync((skullProfile, throwable) -> {
                 skullRegistrationInProgress.remove(playerEntity.getUuid());
-                skullCompletion(playerEntity, session, onCompletion, skullProfile);
+                // Session state may only be touched on the session's event loop
+                session.getEventLoop().execute(() -> skullCompletion(playerEntity, session, onCompletion, skullProfile));
             }));
         } else {
-            CompletableFuture.runAsync(() -> skullCompletion(playerEntity, session, onCompletion, playerSkullProfile));
+            session.getEventLoop().execute(() -> skullCompletion(playerEntity, session, onCompletion, playerSkullProfile));
         }
     }
 
     private static void skullCompletion(SkullPlayerEntity playerEntity, GeyserSession session, Runnable onCompletion, PlayerSkullProfile skullProfile) {
-        if (skullProfile != null) {
+        if (skullProfile != null && !session.isClosed()) {
             session.getPlayerListManager().notifyPlayerSkullProfileUpdate(playerEntity, skullProfile);
             if (onCompletion != null) {
                 try {
@@ -155,11 +156,24 @@ public class SkinManager {
             skinRegistrationInProgress.computeIfAbsent(playerEntity.getUuid(), uuid -> registerWithFuture(playerEntity, force).whenCompleteAsync((skinProfile, throwable) -> {
                 skinRegistrationInProgress.remove(playerEntity.getUuid());
                 if (skinProfile != null) {
-                    GeyserConnector.getInstance().getPlayers().forEach(session -> session.getPlayerListManager().notifyPlayerProfileUpdate(playerEntity, skinProfile));
+                    notifyPlayerProfileUpdate(playerEntity, skinProfile);
                 }
             }));
         } else {
-            CompletableFuture.runAsync(() -> GeyserConnector.getInstance().getPlayers().forEach(session -> session.getPlayerListManager().notifyPlayerProfileUpdate(playerEntity, playerSkinProfile)));
+            notifyPlayerProfileUpdate(playerEntity, playerSkinProfile);
+        }
+    }
+
+    /**
+     * Updates the skin of the player for every session, on each session's event loop
+     */
+    private static void notifyPlayerProfileUpdate(PlayerEntity playerEntity, PlayerSkinProfile playerSkinProfile) {
+        for (GeyserSession session : GeyserConnector.getInstance().getPlayers()) {
+            session.getEventLoop().execute(() -> {
+                if (!session.isClosed()) {
+                    session.getPlayerListManager().notifyPlayerProfileUpdate(playerEntity, playerSkinProfile);
+                }
+            });
         }
     }
 
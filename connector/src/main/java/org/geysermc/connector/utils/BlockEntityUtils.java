@@ -71,6 +71,9 @@ public class BlockEntityUtils {
     }
 
     public static void updateBlockEntity(GeyserSession session, NbtMap blockEntity, Vector3i position) {
+        // The block entity data would be reset if the block itself arrived later
+        ChunkUtils.flushPendingBlock(session, position);
+
         BlockEntityDataPacket blockEntityPacket = new BlockEntityDataPacket();
         blockEntityPacket.setBlockPosition(position);
         blockEntityPacket.setData(blockEntity);
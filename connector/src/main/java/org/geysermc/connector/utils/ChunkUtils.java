@@ -53,6 +53,7 @@ import org.geysermc.connector.entity.Entity;
 import org.geysermc.connector.entity.ItemFrameEntity;
 import org.geysermc.connector.entity.player.SkullPlayerEntity;
 import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.session.cache.ChunkCache;
 import org.geysermc.connector.network.translators.world.block.BlockStateValues;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.BedrockOnlyBlockEntity;
@@ -61,7 +62,10 @@ import org.geysermc.connector.network.translators.world.block.entity.RequiresBlo
 import org.geysermc.connector.network.translators.world.block.entity.SkullBlockEntityTranslator;
 import org.geysermc.connector.network.translators.world.chunk.BlockStorage;
 import org.geysermc.connector.network.translators.world.chunk.ChunkSection;
+import org.geysermc.connector.network.translators.world.chunk.ChunkSectionCache;
+import org.geysermc.connector.network.translators.world.chunk.NetworkChunkSection;
 import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArrayTranscoder;
 import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArrayVersion;
 
 import java.io.ByteArrayOutputStream;
@@ -106,7 +110,7 @@ public class ChunkUtils {
 
     public static ChunkData translateToBedrock(GeyserSession session, Column column, boolean isNonFullChunk) {
         Chunk[] javaSections = column.getChunks();
-        ChunkSection[] sections = new ChunkSection[javaSections.length];
+        NetworkChunkSection[] sections = new NetworkChunkSection[javaSections.length];
 
         // Temporarily stores compound tags of Bedrock-only block entities
         List<NbtMap> bedrockOnlyBlockEntities = new ArrayList<>();
@@ -156,20 +160,35 @@ public class ChunkUtils {
                 continue;
             }
 
+            ChunkSectionCache.SectionKey sectionKey = null;
+            if (ChunkSectionCache.isEnabled()) {
+                sectionKey = ChunkSectionCache.createKey(javaSection);
+                NetworkChunkSection cachedSection = ChunkSectionCache.get(sectionKey);
+                if (cachedSection != null) {
+                    // Only sections without Bedrock-only block entities are cached, so nothing else needs to be done
+                    sections[sectionY] = cachedSection;
+                    continue;
+                }
+            }
+            int blockEntityCount = bedrockOnlyBlockEntities.size();
+
             Palette javaPalette = javaSection.getPalette();
             BitStorage javaData = javaSection.getStorage();
 
             if (javaPalette instanceof GlobalPalette) {
                 // As this is the global palette, simply iterate through the whole chunk section once
-                ChunkSection section = new ChunkSection();
+                int[] runtimeIds = new int[BlockStorage.SIZE];
+                int[] layer1Data = null;
                 for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
                     int javaId = javaData.get(yzx);
-                    int bedrockId = BlockTranslator.getBedrockBlockId(javaId);
                     int xzy = indexYZXtoXZY(yzx);
-                    section.getBlockStorageArray()[0].setFullBlock(xzy, bedrockId);
+                    runtimeIds[xzy] = BlockTranslator.getBedrockBlockId(javaId);
 
                     if (BlockTranslator.isWaterlogged(javaId)) {
-                        section.getBlockStorageArray()[1].setFullBlock(xzy, BEDROCK_WATER_ID);
+                        if (layer1Data == null) {
+                            layer1Data = new int[BlockStorage.SIZE >> 5];
+                        }
+                        layer1Data[xzy >> 5] |= 1 << (xzy & 0x1F);
                     }
 
                     // Check if block is piston or flower to see if we'll need to create additional block entities, as they're only block entities in Bedrock
@@ -180,7 +199,11 @@ public class ChunkUtils {
                         ));
                     }
                 }
-                sections[sectionY] = section;
+
+                // Build the palette and size the bit array in one go, rather than resizing it block by block
+                BlockStorage layer0 = BlockStorage.fromRuntimeIds(runtimeIds);
+                ChunkSection section = new ChunkSection(layer1Data == null ? new BlockStorage[]{ layer0 } : new BlockStorage[]{ layer0, createWaterLayer(layer1Data) });
+                sections[sectionY] = cacheSection(sectionKey, section, blockEntityCount == bedrockOnlyBlockEntities.size());
                 continue;
             }
 
@@ -223,37 +246,21 @@ public class ChunkUtils {
             BlockStorage[] layers;
 
             // Convert data array from YZX to XZY coordinate order
-            if (waterloggedPaletteIds.isEmpty()) {
-                // No blocks are waterlogged, simply convert coordinate order
-                // This could probably be optimized further...
-                for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    bedrockData.set(indexYZXtoXZY(yzx), javaData.get(yzx));
-                }
+            BitArrayTranscoder.transcodeYZXtoXZY(javaData.getData(), javaData.getBitsPerEntry(), bedrockData);
 
+            if (waterloggedPaletteIds.isEmpty()) {
+                // No blocks are waterlogged
                 layers = new BlockStorage[]{ layer0 };
             } else {
-                // The section contains waterlogged blocks, we need to convert coordinate order AND generate a V1 block storage for
+                // The section contains waterlogged blocks, we need to generate a V1 block storage for
                 // layer 1 with palette ID 1 indicating water
                 int[] layer1Data = new int[BlockStorage.SIZE >> 5];
-                for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    int paletteId = javaData.get(yzx);
-                    int xzy = indexYZXtoXZY(yzx);
-                    bedrockData.set(xzy, paletteId);
-
-                    if (waterloggedPaletteIds.get(paletteId)) {
-                        layer1Data[xzy >> 5] |= 1 << (xzy & 0x1F);
-                    }
-                }
+                BitArrayTranscoder.markPaletteIds(bedrockData, waterloggedPaletteIds, layer1Data);
 
-                // V1 palette
-                IntList layer1Palette = new IntArrayList(2);
-                layer1Palette.add(BEDROCK_AIR_ID); // Air - see BlockStorage's constructor for more information
-                layer1Palette.add(BEDROCK_WATER_ID);
-
-                layers = new BlockStorage[]{ layer0, new BlockStorage(BitArrayVersion.V1.createArray(BlockStorage.SIZE, layer1Data), layer1Palette) };
+                layers = new BlockStorage[]{ layer0, createWaterLayer(layer1Data) };
             }
 
-            sections[sectionY] = new ChunkSection(layers);
+            sections[sectionY] = cacheSection(sectionKey, new ChunkSection(layers), blockEntityCount == bedrockOnlyBlockEntities.size());
         }
 
         CompoundTag[] blockEntities = column.getTileEntities();
@@ -310,6 +317,35 @@ public class ChunkUtils {
         return new ChunkData(sections, bedrockBlockEntities);
     }
 
+    /**
+     * Creates a V1 block storage for layer 1, with palette ID 1 indicating water
+     *
+     * @param layer1Data the bit array words, with one bit set for every waterlogged block
+     * @return the water layer
+     */
+    private static BlockStorage createWaterLayer(int[] layer1Data) {
+        IntList layer1Palette = new IntArrayList(2);
+        layer1Palette.add(BEDROCK_AIR_ID); // Air - see BlockStorage's constructor for more information
+        layer1Palette.add(BEDROCK_WATER_ID);
+
+        return new BlockStorage(BitArrayVersion.V1.createArray(BlockStorage.SIZE, layer1Data), layer1Palette);
+    }
+
+    /**
+     * Stores the section in the shared section cache, if it is enabled and the section can be shared.
+     *
+     * @param sectionKey the key of the Java section, or null if the cache is disabled
+     * @param section the translated section
+     * @param noBedrockOnlyBlockEntities if this section did not create any position-dependent block entities
+     * @return the section to send to the client
+     */
+    private static NetworkChunkSection cacheSection(ChunkSectionCache.SectionKey sectionKey, ChunkSection section, boolean noBedrockOnlyBlockEntities) {
+        if (sectionKey != null && noBedrockOnlyBlockEntities) {
+            return ChunkSectionCache.put(sectionKey, section);
+        }
+        return section;
+    }
+
     public static void updateChunkPosition(GeyserSession session, Vector3i position) {
         Vector2i chunkPos = session.getLastChunkPosition();
         Vector2i newChunkPos = Vector2i.from(position.getX() >> 4, position.getZ() >> 4);
@@ -368,25 +404,13 @@ public class ChunkUtils {
             skull.despawnEntity(session, position);
         }
 
-        int blockId = BlockTranslator.getBedrockBlockId(blockState);
-
-        UpdateBlockPacket updateBlockPacket = new UpdateBlockPacket();
-        updateBlockPacket.setDataLayer(0);
-        updateBlockPacket.setBlockPosition(position);
-        updateBlockPacket.setRuntimeId(blockId);
-        updateBlockPacket.getFlags().add(UpdateBlockPacket.Flag.NEIGHBORS);
-        updateBlockPacket.getFlags().add(UpdateBlockPacket.Flag.NETWORK);
-        session.sendUpstreamPacket(updateBlockPacket);
-
-        UpdateBlockPacket waterPacket = new UpdateBlockPacket();
-        waterPacket.setDataLayer(1);
-        waterPacket.setBlockPosition(position);
-        if (BlockTranslator.isWaterlogged(blockState)) {
-            waterPacket.setRuntimeId(BEDROCK_WATER_ID);
-        } else {
-            waterPacket.setRuntimeId(BEDROCK_AIR_ID);
-        }
-        session.sendUpstreamPacket(waterPacket);
+        // If the chunk is still waiting to be sent, send it now so it can't overwrite this update later
+        session.getChunkSendScheduler().flush(position.getX() >> 4, position.getZ() >> 4);
+
+        // The packets are sent at the end of the tick, so a block that changes several times only gets sent once
+        ChunkCache chunkCache = session.getChunkCache();
+        int previousBlockState = chunkCache.isCaching() ? chunkCache.getBlockAt(position.getX(), position.getY(), position.getZ()) : -1;
+        session.getBlockUpdateBuffer().update(position, blockState, previousBlockState);
 
         // Since Java stores bed colors/skull information as part of the namespaced ID and Bedrock stores it as a tag
         // This is the only place I could find that interacts with the Java block state and block updates
@@ -395,6 +419,8 @@ public class ChunkUtils {
             if (requiresBlockState.isBlock(blockState)) {
                 // Flower pots are block entities only in Bedrock and are not updated anywhere else like note blocks
                 if (requiresBlockState instanceof BedrockOnlyBlockEntity) {
+                    // The block entity needs the block to be there already
+                    session.getBlockUpdateBuffer().flush(position);
                     ((BedrockOnlyBlockEntity) requiresBlockState).updateBlock(session, blockState, position);
                     break;
                 }
@@ -408,6 +434,15 @@ public class ChunkUtils {
         session.getChunkCache().updateBlock(position.getX(), position.getY(), position.getZ(), blockState);
     }
 
+    /**
+     * Sends everything that is still waiting to be sent for this block - its chunk and any buffered block update - so
+     * they can't overwrite packets that need the block to be there, such as block entity data and block events.
+     */
+    public static void flushPendingBlock(GeyserSession session, Vector3i position) {
+        session.getChunkSendScheduler().flush(position.getX() >> 4, position.getZ() >> 4);
+        session.getBlockUpdateBuffer().flush(position);
+    }
+
     public static void sendEmptyChunks(GeyserSession session, Vector3i position, int radius, boolean forceUpdate) {
         int chunkX = position.getX() >> 4;
         int chunkZ = position.getZ() >> 4;
@@ -435,7 +470,7 @@ public class ChunkUtils {
 
     @Data
     public static final class ChunkData {
-        private final ChunkSection[] sections;
+        private final NetworkChunkSection[] sections;
 
         private final NbtMap[] blockEntities;
     }
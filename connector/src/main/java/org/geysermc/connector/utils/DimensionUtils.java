@@ -61,6 +61,12 @@ public class DimensionUtils {
         session.getEntityCache().removeAllEntities();
         session.getItemFrameCache().clear();
         session.getSkullCache().clear();
+        // Chunks from the old dimension shouldn't be sent anymore
+        session.getChunkSendScheduler().clear();
+        session.getClientBlobCache().clear();
+        session.getBlockUpdateBuffer().clear();
+        session.getEntityMovementBuffer().clear();
+        session.getEntityInterestManager().clear();
 
         Vector3i pos = Vector3i.from(0, Short.MAX_VALUE, 0);
 
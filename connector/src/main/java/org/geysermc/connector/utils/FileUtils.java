@@ -31,9 +31,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import lombok.SneakyThrows;
 import org.geysermc.connector.GeyserConnector;
-import org.reflections.Reflections;
-import org.reflections.serializers.XmlSerializer;
-import org.reflections.util.ConfigurationBuilder;
 
 import java.io.*;
 import java.net.URI;
@@ -41,6 +38,8 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.security.MessageDigest;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.function.Function;
 
 public class FileUtils {
@@ -211,20 +210,31 @@ public class FileUtils {
     }
 
     /**
-     * Get the stored reflection data for a given path
+     * Get the classes that are annotated with, or implement, the given type.
+     * The list of classes is generated at compile time by the annotation processor in the ap module.
      *
-     * @param path The path to get the reflection data for
-     * @return The created Reflections object
+     * @param type The annotation or interface to get the classes of
+     * @return The classes found for the type, or an empty set if no classes were indexed for it
      */
-    public static Reflections getReflections(String path) {
-        Reflections reflections = new Reflections(new ConfigurationBuilder().setScanners());
-        XmlSerializer serializer = new XmlSerializer();
-        URL resource = FileUtils.class.getClassLoader().getResource("META-INF/reflections/" + path + "-reflections.xml");
-        try (InputStream inputStream = resource.openConnection().getInputStream()) {
-            reflections.merge(serializer.read(inputStream));
-        } catch (IOException e) { }
+    public static Set<Class<?>> getGeneratedClassesForType(Class<?> type) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        InputStream stream = FileUtils.class.getClassLoader().getResourceAsStream("META-INF/geyser/" + type.getName());
+        if (stream == null) {
+            // Nothing was indexed, for example because a platform left these classes out
+            return classes;
+        }
 
-        return reflections;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String className;
+            while ((className = reader.readLine()) != null) {
+                if (!className.isEmpty()) {
+                    classes.add(Class.forName(className));
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Unable to load the classes for " + type.getName(), e);
+        }
+        return classes;
     }
 
     /**
@@ -30,11 +30,17 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.github.steveice10.mc.auth.service.MsaAuthenticationService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.nimbusds.jose.JWSObject;
 import com.nukkitx.network.util.Preconditions;
 import com.nukkitx.protocol.bedrock.packet.LoginPacket;
 import com.nukkitx.protocol.bedrock.packet.ServerToClientHandshakePacket;
 import com.nukkitx.protocol.bedrock.util.EncryptionUtils;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.AllArgsConstructor;
 import org.geysermc.common.window.*;
 import org.geysermc.common.window.button.FormButton;
 import org.geysermc.common.window.component.InputComponent;
@@ -50,28 +56,49 @@ import org.geysermc.connector.network.session.cache.WindowCache;
 
 import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PublicKey;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECGenParameterSpec;
 import java.util.UUID;
+import java.util.concurrent.*;
 
 public class LoginEncryptionUtils {
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
+    /**
+     * Verifying the login chain and setting up encryption takes several milliseconds of CPU time, so it is done here
+     * instead of on the network thread, which is shared with other sessions. At most 256 logins can wait for a thread;
+     * any more are turned away, so a flood of connections can't pile up their login packets in memory.
+     */
+    private static final ExecutorService CRYPTO_EXECUTOR = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().availableProcessors(), 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(256),
+            new DefaultThreadFactory("Geyser Login Crypto", true));
+
+    /**
+     * The result of verifying a chain link with a key, by hash of the key and the link. The Mojang-signed links stay
+     * the same between logins, so players reconnecting don't need them verified again.
+     */
+    private static final Cache<HashCode, Boolean> VERIFIED_LINKS = CacheBuilder.newBuilder()
+            .maximumSize(4096)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
     private static boolean validateChainData(JsonNode data) throws Exception {
         ECPublicKey lastKey = null;
         boolean validChain = false;
         for (JsonNode node : data) {
-            JWSObject jwt = JWSObject.parse(node.asText());
+            String token = node.asText();
+            JWSObject jwt = JWSObject.parse(token);
 
             if (!validChain) {
-                validChain = EncryptionUtils.verifyJwt(jwt, EncryptionUtils.getMojangPublicKey());
+                validChain = verifyChainLink(token, jwt, EncryptionUtils.getMojangPublicKey());
             }
 
             if (lastKey != null) {
-                 if (!EncryptionUtils.verifyJwt(jwt, lastKey)) return false;
+                 if (!verifyChainLink(token, jwt, lastKey)) return false;
             }
 
             JsonNode payloadNode = JSON_MAPPER.readTree(jwt.getPayload().toString());
@@ -82,7 +109,26 @@ public class LoginEncryptionUtils {
         return validChain;
     }
 
-    public static void encryptPlayerConnection(GeyserConnector connector, GeyserSession session, LoginPacket loginPacket) {
+    private static boolean verifyChainLink(String token, JWSObject jwt, ECPublicKey key) throws Exception {
+        HashCode hash = Hashing.sha256().newHasher()
+                .putBytes(key.getEncoded())
+                .putString(token, StandardCharsets.UTF_8)
+                .hash();
+        Boolean verified = VERIFIED_LINKS.getIfPresent(hash);
+        if (verified == null) {
+            verified = EncryptionUtils.verifyJwt(jwt, key);
+            VERIFIED_LINKS.put(hash, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Verify the login and start encryption. This happens asynchronously; once it's done, the rest of the login
+     * continues on the session's event loop.
+     *
+     * @param onComplete run on the session's event loop once the player has been verified
+     */
+    public static void encryptPlayerConnection(GeyserConnector connector, GeyserSession session, LoginPacket loginPacket, Runnable onComplete) {
         JsonNode certData;
         try {
             certData = JSON_MAPPER.readTree(loginPacket.getChainData().toByteArray());
@@ -95,17 +141,22 @@ public class LoginEncryptionUtils {
             throw new RuntimeException("Certificate data is not valid");
         }
 
-        encryptConnectionWithCert(connector, session, loginPacket.getSkinData().toString(), certChainData);
+        String clientData = loginPacket.getSkinData().toString();
+        try {
+            CRYPTO_EXECUTOR.execute(() -> encryptConnectionWithCert(connector, session, clientData, certChainData, onComplete));
+        } catch (RejectedExecutionException e) {
+            session.disconnect("disconnectionScreen.serverFull");
+        }
     }
 
-    private static void encryptConnectionWithCert(GeyserConnector connector, GeyserSession session, String clientData, JsonNode certChainData) {
+    private static void encryptConnectionWithCert(GeyserConnector connector, GeyserSession session, String clientData, JsonNode certChainData, Runnable onComplete) {
         try {
             boolean validChain = validateChainData(certChainData);
 
             connector.getLogger().debug(String.format("Is player data valid? %s", validChain));
 
             if (!validChain && !session.getConnector().getConfig().isEnableProxyConnections()) {
-                session.disconnect(LanguageUtils.getLocaleStringLog("geyser.network.remote.invalid_xbox_account"));
+                session.getEventLoop().execute(() -> session.disconnect(LanguageUtils.getLocaleStringLog("geyser.network.remote.invalid_xbox_account")));
                 return;
             }
             JWSObject jwt = JWSObject.parse(certChainData.get(certChainData.size() - 1).asText());
@@ -116,11 +167,11 @@ public class LoginEncryptionUtils {
             }
 
             JsonNode extraData = payload.get("extraData");
-            session.setAuthenticationData(new AuthData(
+            AuthData authData = new AuthData(
                     extraData.get("displayName").asText(),
                     UUID.fromString(extraData.get("identity").asText()),
                     extraData.get("XUID").asText()
-            ));
+            );
 
             if (payload.get("identityPublicKey").getNodeType() != JsonNodeType.STRING) {
                 throw new RuntimeException("Identity Public Key was not found!");
@@ -130,29 +181,44 @@ public class LoginEncryptionUtils {
             JWSObject clientJwt = JWSObject.parse(clientData);
             EncryptionUtils.verifyJwt(clientJwt, identityPublicKey);
 
-            session.setClientData(JSON_MAPPER.convertValue(JSON_MAPPER.readTree(clientJwt.getPayload().toBytes()), BedrockClientData.class));
+            BedrockClientData bedrockClientData = JSON_MAPPER.convertValue(JSON_MAPPER.readTree(clientJwt.getPayload().toBytes()), BedrockClientData.class);
 
-            if (EncryptionUtils.canUseEncryption()) {
-                LoginEncryptionUtils.startEncryptionHandshake(session, identityPublicKey);
-            }
+            EncryptionHandshake handshake = EncryptionUtils.canUseEncryption() ? createEncryptionHandshake(identityPublicKey) : null;
+
+            session.getEventLoop().execute(() -> {
+                session.setAuthenticationData(authData);
+                session.setClientData(bedrockClientData);
+
+                if (handshake != null) {
+                    session.getUpstream().getSession().enableEncryption(handshake.encryptionKey);
+                    session.sendUpstreamPacketImmediately(handshake.packet);
+                }
+
+                onComplete.run();
+            });
         } catch (Exception ex) {
-            session.disconnect("disconnectionScreen.internalError.cantConnect");
-            throw new RuntimeException("Unable to complete login", ex);
+            connector.getLogger().error("Unable to complete login", ex);
+            session.getEventLoop().execute(() -> session.disconnect("disconnectionScreen.internalError.cantConnect"));
         }
     }
 
-    private static void startEncryptionHandshake(GeyserSession session, PublicKey key) throws Exception {
+    private static EncryptionHandshake createEncryptionHandshake(PublicKey key) throws Exception {
         KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
         generator.initialize(new ECGenParameterSpec("secp384r1"));
         KeyPair serverKeyPair = generator.generateKeyPair();
 
         byte[] token = EncryptionUtils.generateRandomToken();
         SecretKey encryptionKey = EncryptionUtils.getSecretKey(serverKeyPair.getPrivate(), key, token);
-        session.getUpstream().getSession().enableEncryption(encryptionKey);
 
         ServerToClientHandshakePacket packet = new ServerToClientHandshakePacket();
         packet.setJwt(EncryptionUtils.createHandshakeJwt(serverKeyPair, token).serialize());
-        session.sendUpstreamPacketImmediately(packet);
+        return new EncryptionHandshake(encryptionKey, packet);
+    }
+
+    @AllArgsConstructor
+    private static class EncryptionHandshake {
+        private final SecretKey encryptionKey;
+        private final ServerToClientHandshakePacket packet;
     }
 
     private static final int AUTH_MSA_DETAILS_FORM_ID = 1334;
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.utils;
+
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+import com.nukkitx.protocol.bedrock.BedrockServerSession;
+import com.nukkitx.protocol.bedrock.packet.AvailableEntityIdentifiersPacket;
+import com.nukkitx.protocol.bedrock.packet.BiomeDefinitionListPacket;
+import com.nukkitx.protocol.bedrock.packet.CreativeContentPacket;
+import com.nukkitx.protocol.bedrock.packet.UnknownPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.AllArgsConstructor;
+import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.translators.BiomeTranslator;
+import org.geysermc.connector.network.translators.EntityIdentifierRegistry;
+import org.geysermc.connector.network.translators.item.ItemRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Packets sent on every login that are the same for every player. Each is only serialized once per protocol version;
+ * afterwards the encoded bytes are reused for every player.
+ */
+public enum LoginPacketCache {
+    BIOME_DEFINITIONS(() -> {
+        BiomeDefinitionListPacket biomeDefinitionListPacket = new BiomeDefinitionListPacket();
+        biomeDefinitionListPacket.setDefinitions(BiomeTranslator.BIOMES);
+        return biomeDefinitionListPacket;
+    }),
+    ENTITY_IDENTIFIERS(() -> {
+        AvailableEntityIdentifiersPacket entityPacket = new AvailableEntityIdentifiersPacket();
+        entityPacket.setIdentifiers(EntityIdentifierRegistry.ENTITY_IDENTIFIERS);
+        return entityPacket;
+    }),
+    CREATIVE_CONTENT(() -> {
+        CreativeContentPacket creativePacket = new CreativeContentPacket();
+        creativePacket.setContents(ItemRegistry.CREATIVE_ITEMS);
+        return creativePacket;
+    });
+
+    private final Supplier<BedrockPacket> packetSupplier;
+    /**
+     * The encoded packet, by protocol version
+     */
+    private final Map<Integer, EncodedPacket> encodedPackets = new ConcurrentHashMap<>();
+
+    LoginPacketCache(Supplier<BedrockPacket> packetSupplier) {
+        this.packetSupplier = packetSupplier;
+    }
+
+    /**
+     * @return a packet containing the already encoded contents, for the codec of this session
+     */
+    public BedrockPacket get(GeyserSession session) {
+        BedrockServerSession upstream = session.getUpstream().getSession();
+        BedrockPacketCodec codec = upstream.getPacketCodec();
+        EncodedPacket encodedPacket = encodedPackets.computeIfAbsent(codec.getProtocolVersion(), version -> encode(codec, upstream));
+
+        UnknownPacket packet = new UnknownPacket();
+        packet.setPacketId(encodedPacket.id);
+        // A new wrapper for every player, so releasing one doesn't affect the others
+        packet.setPayload(Unpooled.wrappedBuffer(encodedPacket.payload));
+        return packet;
+    }
+
+    private EncodedPacket encode(BedrockPacketCodec codec, BedrockServerSession upstream) {
+        BedrockPacket packet = packetSupplier.get();
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            codec.tryEncode(buffer, packet, upstream);
+            byte[] payload = new byte[buffer.readableBytes()];
+            buffer.readBytes(payload);
+            return new EncodedPacket(codec.getId(packet), payload);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class EncodedPacket {
+        private final int id;
+        private final byte[] payload;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk.bitarray;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class BitArrayTranscoderTest {
+
+    @Test
+    public void matchesPerBlockConversion() {
+        Random random = new Random(0x6E7E4);
+        for (int javaBits = 4; javaBits <= 15; javaBits++) {
+            int[] values = new int[4096];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(1 << javaBits);
+            }
+            long[] javaWords = toJavaStorage(values, javaBits);
+
+            for (BitArrayVersion version : BitArrayVersion.values()) {
+                if (version.bits < javaBits) {
+                    continue;
+                }
+
+                BitArray expected = version.createArray(4096);
+                for (int yzx = 0; yzx < values.length; yzx++) {
+                    int xzy = (yzx >> 8) | (yzx & 0x0F0) | ((yzx & 0x00F) << 8);
+                    expected.set(xzy, values[yzx]);
+                }
+
+                BitArray actual = version.createArray(4096);
+                BitArrayTranscoder.transcodeYZXtoXZY(javaWords, javaBits, actual);
+                Assert.assertArrayEquals("Java bits " + javaBits + " to " + version, expected.getWords(), actual.getWords());
+            }
+        }
+    }
+
+    @Test
+    public void marksPaletteIds() {
+        Random random = new Random(0x3A7E5);
+        for (BitArrayVersion version : BitArrayVersion.values()) {
+            int paletteSize = Math.min(1 << version.bits, 64);
+            BitSet paletteIds = new BitSet();
+            for (int id = 0; id < paletteSize; id += 3) {
+                paletteIds.set(id);
+            }
+
+            BitArray array = version.createArray(4096);
+            int[] expected = new int[4096 >> 5];
+            for (int index = 0; index < 4096; index++) {
+                int id = random.nextInt(paletteSize);
+                array.set(index, id);
+                if (paletteIds.get(id)) {
+                    expected[index >> 5] |= 1 << (index & 0x1F);
+                }
+            }
+
+            int[] actual = new int[4096 >> 5];
+            BitArrayTranscoder.markPaletteIds(array, paletteIds, actual);
+            Assert.assertArrayEquals(version.toString(), expected, actual);
+        }
+    }
+
+    /**
+     * Packs values the way Java Edition 1.16 does - entries do not span multiple longs
+     */
+    private static long[] toJavaStorage(int[] values, int bits) {
+        int entriesPerLong = 64 / bits;
+        long[] words = new long[(values.length + entriesPerLong - 1) / entriesPerLong];
+        for (int i = 0; i < values.length; i++) {
+            words[i / entriesPerLong] |= (long) values[i] << ((i % entriesPerLong) * bits);
+        }
+        return words;
+    }
+}